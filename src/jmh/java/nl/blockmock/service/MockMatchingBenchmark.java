@@ -0,0 +1,147 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of matching one HTTP request against a route table snapshot, i.e. what
+ * {@link HttpMockService#handleRequest} does before logging: routing through {@link HttpRouter}
+ * and selecting a response from the endpoint's {@link ResponsePlan}. No database is involved.
+ * <p>
+ * The synthetic endpoint set is 80% exact and 20% regex paths over 50 services and alternating
+ * methods. Every endpoint has a header, a query, a body regex and a JSON response besides a
+ * fallback. Each benchmark cycles through {@value #REQUESTS} precomputed requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MockMatchingBenchmark {
+
+    private static final int REQUESTS = 1024;
+    private static final int SERVICES = 50;
+
+    @Param({"10", "1000", "10000"})
+    int endpoints;
+
+    private HttpRouter router;
+    private Request[] exact;
+    private Request[] regex;
+    private Request[] body;
+    private Request[] miss;
+    private int next;
+
+    private record Request(String method, String path, Map<String, String> headers,
+                           Map<String, String> queryParams, String body) {}
+
+    @Setup
+    public void setUp() {
+        Map<String, Pattern> patterns = new HashMap<>();
+        Map<String, MatchScript> scripts = new HashMap<>();
+        List<MockRouteTable.HttpRoute> routes = new ArrayList<>(endpoints);
+        for (int i = 0; i < endpoints; i++) {
+            boolean isRegex = i % 5 == 4;
+            HttpMockEndpoint endpoint = new HttpMockEndpoint();
+            endpoint.setName("endpoint-" + i);
+            endpoint.setProtocol(ProtocolType.HTTP);
+            endpoint.setHttpMethod(method(i));
+            endpoint.setHttpPath(isRegex ? "/api/svc" + (i % SERVICES) + "/items/\\d+/r" + i : exactPath(i));
+            endpoint.setHttpPathRegex(isRegex);
+
+            Pattern pathPattern = isRegex ? patterns.computeIfAbsent(endpoint.getHttpPath(), Pattern::compile) : null;
+            ResponsePlan plan = ResponsePlan.http(responses(i),
+                    source -> patterns.computeIfAbsent(source, Pattern::compile),
+                    source -> scripts.computeIfAbsent(source, MatchScript::compile));
+            routes.add(new MockRouteTable.HttpRoute(i, endpoint, pathPattern, null, plan));
+        }
+        router = new HttpRouter(routes);
+
+        Random random = new Random(42);
+        exact = new Request[REQUESTS];
+        regex = new Request[REQUESTS];
+        body = new Request[REQUESTS];
+        miss = new Request[REQUESTS];
+        for (int r = 0; r < REQUESTS; r++) {
+            int i = random.nextInt(endpoints);
+            int e = i % 5 == 4 ? i - 1 : i;
+            exact[r] = new Request(method(e).name(), exactPath(e),
+                    Map.of("x-tenant", "acme", "accept", "application/json"), Map.of(), null);
+
+            int g = 5 * random.nextInt(endpoints / 5) + 4;
+            regex[r] = new Request(method(g).name(),
+                    "/api/svc" + (g % SERVICES) + "/items/" + random.nextInt(100_000) + "/r" + g,
+                    Map.of("accept", "application/json"), Map.of("page", "2"), null);
+
+            body[r] = new Request(method(e).name(), exactPath(e), Map.of("content-type", "application/json"), Map.of(),
+                    "{\"order\":{\"id\":" + random.nextInt(100_000) + ",\"type\":\"" + (r % 2 == 0 ? "gold" : "basic")
+                            + "\",\"lines\":[{\"sku\":\"A-1\",\"qty\":3}]}}");
+
+            miss[r] = new Request("GET", "/api/svc" + (i % SERVICES) + "/unknown/" + r,
+                    Map.of("accept", "application/json"), Map.of(), null);
+        }
+    }
+
+    @Benchmark
+    public HttpRouter.Match exactPathHeaderCriterion() {
+        return match(exact[next++ & (REQUESTS - 1)]);
+    }
+
+    @Benchmark
+    public HttpRouter.Match regexPathQueryCriterion() {
+        return match(regex[next++ & (REQUESTS - 1)]);
+    }
+
+    @Benchmark
+    public HttpRouter.Match exactPathBodyCriteria() {
+        return match(body[next++ & (REQUESTS - 1)]);
+    }
+
+    @Benchmark
+    public HttpRouter.Match noMatchingEndpoint() {
+        return match(miss[next++ & (REQUESTS - 1)]);
+    }
+
+    /** Mirrors HttpMockService.handleRequest and findMatchingResponse. */
+    private HttpRouter.Match match(Request request) {
+        RequestBody requestBody = new RequestBody(request.body());
+        return router.find(request.method(), request.path(), route -> route.forcedResponse() != null
+                ? route.forcedResponse()
+                : route.responses().select(request.method(), request.path(), request.headers(),
+                        request.queryParams(), requestBody));
+    }
+
+    private static HttpMethod method(int i) {
+        return i % 2 == 0 ? HttpMethod.GET : HttpMethod.POST;
+    }
+
+    private static String exactPath(int i) {
+        return "/api/svc" + (i % SERVICES) + "/resource/" + i;
+    }
+
+    private static List<MockResponse> responses(int i) {
+        MockResponse tenant = response("tenant", 40);
+        tenant.setMatchHeaders(Map.of("X-Tenant", "acme"));
+        MockResponse paged = response("paged", 30);
+        paged.setMatchQueryParams(Map.of("page", "2"));
+        MockResponse gold = response("gold", 20);
+        gold.setMatchJson(Map.of("$.order.type", "gold"));
+        MockResponse order = response("order", 10);
+        order.setMatchBody("/\"id\":\\s*\\d+/");
+        MockResponse fallback = response("fallback-" + i, 0);
+        return List.of(tenant, paged, gold, order, fallback);
+    }
+
+    private static MockResponse response(String name, int priority) {
+        MockResponse response = new MockResponse();
+        response.setName(name);
+        response.setPriority(priority);
+        response.setResponseStatusCode(200);
+        return response;
+    }
+}
@@ -0,0 +1,19 @@
+package nl.blockmock.domain;
+
+/**
+ * How much of each hit on an endpoint is written to the request log. Test expectations only see
+ * what was logged: {@code COUNT_ONLY} and {@code SAMPLED} endpoints are unsuitable for call-count
+ * expectations, and body expectations need {@code FULL}.
+ */
+public enum CaptureLevel {
+    /** Everything: headers, query parameters and both bodies. */
+    FULL,
+    /** Everything except the request and response bodies. */
+    HEADERS_ONLY,
+    /** Method, path or address, status, delay and client only; no headers, properties or bodies. */
+    METADATA_ONLY,
+    /** No log at all; only the endpoint counters are updated. */
+    COUNT_ONLY,
+    /** Full logs for {@code captureSamplePercent} percent of the hits, chosen at random; none for the rest. */
+    SAMPLED
+}
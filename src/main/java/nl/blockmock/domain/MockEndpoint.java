@@ -18,6 +18,7 @@ import java.util.List;
  * are stored in separate joined tables and distinguished by the {@code protocol} discriminant.
  * Tracks aggregate metrics (total/matched/unmatched requests) and holds an optional
  * {@code forcedResponse} used during test runs to override normal response selection.
+ * {@code captureLevel} controls how much of each hit is written to the request log.
  */
 @Entity
 @Table(name = "mock_endpoint")
@@ -50,6 +51,15 @@ public abstract class MockEndpoint extends PanacheEntity {
     @Column(nullable = false)
     private Boolean enabled = true;
 
+    // How much of each hit is written to the request log
+    @Enumerated(EnumType.STRING)
+    @Column(name = "capture_level", nullable = false, length = 50)
+    private CaptureLevel captureLevel = CaptureLevel.FULL;
+
+    // 1-100, for CaptureLevel.SAMPLED
+    @Column(name = "capture_sample_percent")
+    private Integer captureSamplePercent;
+
     // Metrics/Statistics
     @Column(name = "total_requests")
     private Long totalRequests = 0L;
@@ -40,6 +40,16 @@ public class MockResponse extends PanacheEntity {
     @Column(name = "match_query_params", columnDefinition = "jsonb")
     private Map<String, String> matchQueryParams;
 
+    // JSON Pointer ("/order/id") or simple JSONPath ("$.order.id") → expected value
+    @Type(JsonBinaryType.class)
+    @Column(name = "match_json", columnDefinition = "jsonb")
+    private Map<String, String> matchJson;
+
+    // XPath subset ("/Envelope/Body/GetOrder/id", "//id", "//Order/@type") → expected text
+    @Type(JsonBinaryType.class)
+    @Column(name = "match_xml", columnDefinition = "jsonb")
+    private Map<String, String> matchXml;
+
     @Column(name = "match_script", columnDefinition = "TEXT")
     private String matchScript;
 
@@ -49,6 +49,16 @@ public class RequestLog extends PanacheEntity {
     @Column(name = "request_body", columnDefinition = "TEXT")
     private String requestBody;
 
+    // Large bodies are stored deflated instead (requestBody is then null) and only loaded on demand
+    @JsonIgnore
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "request_body_compressed")
+    private byte[] requestBodyCompressed;
+
+    // Original size in UTF-8 bytes, set when the body is stored compressed
+    @Column(name = "request_body_length")
+    private Integer requestBodyLength;
+
     // Response details
     @Column(name = "response_status_code")
     private Integer responseStatusCode;
@@ -60,6 +70,28 @@ public class RequestLog extends PanacheEntity {
     @Column(name = "response_body", columnDefinition = "TEXT")
     private String responseBody;
 
+    @JsonIgnore
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "response_body_compressed")
+    private byte[] responseBodyCompressed;
+
+    @Column(name = "response_body_length")
+    private Integer responseBodyLength;
+
+    // Matched responses are stored once in response_snapshot; the inline columns above stay null.
+    // The snapshot's headers and body are not loaded with the log, so evaluations never read the
+    // canned body per row; they are set in memory, and the log APIs resolve them per page.
+    @Column(name = "response_snapshot_hash", length = 64)
+    private String responseSnapshotHash;
+
+    @JsonIgnore
+    @Transient
+    private Map<String, String> snapshotHeaders;
+
+    @JsonIgnore
+    @Transient
+    private String snapshotBody;
+
     @Column(name = "response_delay_ms")
     private Integer responseDelayMs;
 
@@ -93,8 +125,26 @@ public class RequestLog extends PanacheEntity {
     @Column(name = "received_at", nullable = false)
     private LocalDateTime receivedAt;
 
+    public Map<String, String> getResponseHeaders() {
+        return responseSnapshotHash != null ? snapshotHeaders : responseHeaders;
+    }
+
+    public String getResponseBody() {
+        return responseSnapshotHash != null ? snapshotBody : responseBody;
+    }
+
+    /** References a stored response snapshot; headers and body are kept in memory only, never loaded with the log. */
+    public void setResponseSnapshot(String hash, Map<String, String> headers, String body) {
+        this.responseSnapshotHash = hash;
+        this.snapshotHeaders = headers;
+        this.snapshotBody = body;
+    }
+
+    // Normally stamped when the log is queued; the write happens later
     @PrePersist
     protected void onCreate() {
-        receivedAt = LocalDateTime.now();
+        if (receivedAt == null) {
+            receivedAt = LocalDateTime.now();
+        }
     }
 }
@@ -24,8 +24,8 @@ public class ScenarioResponseOverride extends PanacheEntity {
     @JoinColumn(name = "mock_endpoint_id", nullable = false)
     private MockEndpoint mockEndpoint;
 
-    @JsonIgnoreProperties({"matchHeaders", "matchBody", "matchQueryParams", "matchScript",
-            "responseHeaders", "responseBody", "responseDelayMs", "createdAt", "updatedAt"})
+    @JsonIgnoreProperties({"matchHeaders", "matchBody", "matchQueryParams", "matchJson", "matchXml",
+            "matchScript", "responseHeaders", "responseBody", "responseDelayMs", "createdAt", "updatedAt"})
     @ManyToOne
     @JoinColumn(name = "mock_response_id", nullable = false)
     private MockResponse mockResponse;
@@ -3,6 +3,7 @@ package nl.blockmock.protocol.http;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
+import nl.blockmock.service.EndpointLatency;
 import nl.blockmock.service.HttpMockService;
 
 import java.util.HashMap;
@@ -19,6 +20,9 @@ public class HttpMockResource {
     @Inject
     HttpMockService httpMockService;
 
+    @Inject
+    EndpointLatency endpointLatency;
+
     @Context
     UriInfo uriInfo;
 
@@ -76,6 +80,7 @@ public class HttpMockResource {
     }
 
     private Response handleRequestWithBody(String method, String path, String body, Request request) {
+        long start = System.nanoTime();
         Map<String, String> headers = new HashMap<>();
         for (String headerName : httpHeaders.getRequestHeaders().keySet()) {
             headers.put(headerName.toLowerCase(), httpHeaders.getHeaderString(headerName));
@@ -107,6 +112,9 @@ public class HttpMockResource {
             responseBuilder.entity(mockResponse.body());
         }
 
-        return responseBuilder.build();
+        Response response = responseBuilder.build();
+        endpointLatency.record(mockResponse.endpointId(), mockResponse.responseId(), EndpointLatency.Phase.TOTAL,
+                System.nanoTime() - start);
+        return response;
     }
 }
@@ -7,11 +7,12 @@ import jakarta.ws.rs.core.Response;
 import nl.blockmock.domain.MockEndpoint;
 import nl.blockmock.domain.MockResponse;
 import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.service.EndpointLatency;
 import nl.blockmock.service.MockEndpointService;
 
 import java.util.List;
 
-/** REST API for mock endpoint CRUD, response management, and enable/disable toggling. ({@code /api/endpoints}) */
+/** REST API for mock endpoint CRUD, response management, enable/disable toggling and latency. ({@code /api/endpoints}) */
 @Path("/api/endpoints")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -20,6 +21,9 @@ public class MockEndpointResource {
     @Inject
     MockEndpointService mockEndpointService;
 
+    @Inject
+    EndpointLatency endpointLatency;
+
     @GET
     public List<MockEndpoint> list() {
         return mockEndpointService.findAll();
@@ -33,6 +37,18 @@ public class MockEndpointResource {
                 .orElse(Response.status(Response.Status.NOT_FOUND).build());
     }
 
+    /**
+     * Matching, delay and total latency of the endpoint and each of its responses:
+     * p50/p90/p99/p99.9/max in milliseconds over the last 1, 5 and 15 minutes.
+     */
+    @GET
+    @Path("/{id}/latency")
+    public Response latency(@PathParam("id") Long id) {
+        return mockEndpointService.findById(id)
+                .map(endpoint -> Response.ok(endpointLatency.report(id)).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    }
+
     @GET
     @Path("/protocol/{protocol}")
     public List<MockEndpoint> listByProtocol(@PathParam("protocol") ProtocolType protocol) {
@@ -41,8 +57,12 @@ public class MockEndpointResource {
 
     @POST
     public Response create(MockEndpoint endpoint) {
-        MockEndpoint created = mockEndpointService.create(endpoint);
-        return Response.status(Response.Status.CREATED).entity(created).build();
+        try {
+            MockEndpoint created = mockEndpointService.create(endpoint);
+            return Response.status(Response.Status.CREATED).entity(created).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
     }
 
     @PUT
@@ -52,8 +72,12 @@ public class MockEndpointResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
         endpoint.id = id;
-        MockEndpoint updated = mockEndpointService.update(endpoint);
-        return Response.ok(updated).build();
+        try {
+            MockEndpoint updated = mockEndpointService.update(endpoint);
+            return Response.ok(updated).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
     }
 
     @DELETE
@@ -80,11 +104,14 @@ public class MockEndpointResource {
     @POST
     @Path("/{id}/responses")
     public Response addResponse(@PathParam("id") Long id, MockResponse response) {
+        if (!mockEndpointService.findById(id).isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
         try {
             MockResponse created = mockEndpointService.addResponse(id, response);
             return Response.status(Response.Status.CREATED).entity(created).build();
         } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.NOT_FOUND).build();
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         }
     }
 
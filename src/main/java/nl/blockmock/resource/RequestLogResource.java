@@ -1,16 +1,26 @@
 package nl.blockmock.resource;
 
+import io.smallrye.mutiny.Multi;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import nl.blockmock.domain.ProtocolType;
 import nl.blockmock.domain.RequestLog;
+import nl.blockmock.service.RecentLog;
+import nl.blockmock.service.RequestLogExporter;
+import nl.blockmock.service.RequestLogFilter;
+import nl.blockmock.service.RequestLogRetentionService;
+import nl.blockmock.service.RequestLogSearch;
 import nl.blockmock.service.RequestLogService;
+import nl.blockmock.service.RequestLogStream;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-/** REST API for querying request logs by endpoint, protocol, matched status, and statistics. ({@code /api/logs}) */
+/** REST API for querying, searching and streaming request logs, plus statistics and retention. ({@code /api/logs}) */
 @Path("/api/logs")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -19,15 +29,130 @@ public class RequestLogResource {
     @Inject
     RequestLogService requestLogService;
 
+    @Inject
+    RequestLogRetentionService retentionService;
+
+    @Inject
+    RequestLogExporter requestLogExporter;
+
+    @Inject
+    RequestLogStream requestLogStream;
+
+    @Inject
+    RequestLogSearch requestLogSearch;
+
+    /** Upper bound on rows returned by one list call; page through {@code /query} for more. */
+    private static final int MAX_LIMIT = 1000;
+
+    @GET
+    public List<RequestLog> list(@QueryParam("limit") @DefaultValue("100") int limit) {
+        return requestLogService.findAll(clamp(limit));
+    }
+
+    /**
+     * Filtered, keyset-paginated log summaries, newest first. Pass the returned {@code nextCursor}
+     * as {@code cursor} to get the next page.
+     */
+    @GET
+    @Path("/query")
+    public Response query(@QueryParam("endpointId") Long endpointId,
+                          @QueryParam("protocol") ProtocolType protocol,
+                          @QueryParam("matched") Boolean matched,
+                          @QueryParam("from") LocalDateTime from,
+                          @QueryParam("to") LocalDateTime to,
+                          @QueryParam("pathPrefix") String pathPrefix,
+                          @QueryParam("status") Integer status,
+                          @QueryParam("cursor") String cursor,
+                          @QueryParam("limit") @DefaultValue("100") int limit) {
+        RequestLogFilter filter = new RequestLogFilter(endpointId, protocol, matched, from, to, pathPrefix, status);
+        try {
+            return Response.ok(requestLogService.query(filter, cursor, clamp(limit))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Logs whose body, path, headers or AMQP properties contain {@code q} (case-insensitive),
+     * keyset-paginated like {@code /query}. {@code fields} limits the search to a comma-separated
+     * subset of {@code body}, {@code path}, {@code headers} and {@code properties}.
+     * <p>
+     * Bodies stored compressed (at least {@code compress-threshold} bytes) are not searched. The
+     * response's {@code compressedBodiesSkipped} tells how many logs matching the other criteria
+     * were skipped for that reason (capped at 10000); narrow the search with {@code endpointId} and
+     * {@code from}/{@code to} and use {@code /api/logs/export} to inspect them.
+     */
     @GET
-    public List<RequestLog> list() {
-        return requestLogService.findAll();
+    @Path("/search")
+    public Response search(@QueryParam("q") String q,
+                           @QueryParam("fields") String fields,
+                           @QueryParam("endpointId") Long endpointId,
+                           @QueryParam("protocol") ProtocolType protocol,
+                           @QueryParam("matched") Boolean matched,
+                           @QueryParam("from") LocalDateTime from,
+                           @QueryParam("to") LocalDateTime to,
+                           @QueryParam("cursor") String cursor,
+                           @QueryParam("limit") @DefaultValue("100") int limit) {
+        RequestLogFilter filter = new RequestLogFilter(endpointId, protocol, matched, from, to, null, null);
+        try {
+            return Response.ok(requestLogSearch.search(q, RequestLogSearch.Field.parse(fields), filter,
+                    cursor, clamp(limit))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(e.getMessage())).build();
+        }
     }
 
     @GET
     @Path("/recent")
-    public List<RequestLog> recent(@QueryParam("limit") @DefaultValue("100") int limit) {
-        return requestLogService.findRecent(limit);
+    public List<RecentLog> recent(@QueryParam("limit") @DefaultValue("100") int limit,
+                                  @QueryParam("endpointId") Long endpointId,
+                                  @QueryParam("protocol") ProtocolType protocol,
+                                  @QueryParam("matched") Boolean matched) {
+        return requestLogService.findRecent(Math.max(0, limit), new RequestLogFilter(endpointId, protocol, matched));
+    }
+
+    /**
+     * Live tail: pushes logs as they are written, as server-sent events with a JSON log each.
+     * Clients that fall behind miss logs rather than slow down logging.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<RecentLog> stream(@QueryParam("endpointId") Long endpointId,
+                                   @QueryParam("protocol") ProtocolType protocol,
+                                   @QueryParam("matched") Boolean matched) {
+        return requestLogStream.subscribe(new RequestLogFilter(endpointId, protocol, matched));
+    }
+
+    /**
+     * Streams every log matching the filters as NDJSON ({@code format=ndjson}, the default) or CSV,
+     * oldest first, in constant memory.
+     */
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response export(@QueryParam("format") @DefaultValue("ndjson") String format,
+                           @QueryParam("endpointId") Long endpointId,
+                           @QueryParam("protocol") ProtocolType protocol,
+                           @QueryParam("matched") Boolean matched,
+                           @QueryParam("from") LocalDateTime from,
+                           @QueryParam("to") LocalDateTime to,
+                           @QueryParam("pathPrefix") String pathPrefix,
+                           @QueryParam("status") Integer status) {
+        RequestLogExporter.Format exportFormat;
+        try {
+            exportFormat = RequestLogExporter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorResponse("Unknown export format: " + format)).build();
+        }
+        RequestLogFilter filter = new RequestLogFilter(endpointId, protocol, matched, from, to, pathPrefix, status);
+        StreamingOutput body = out -> requestLogExporter.export(filter, exportFormat, out);
+        return Response.ok(body, exportFormat.mediaType)
+                .header("Content-Disposition", "attachment; filename=\"request-logs." + exportFormat.extension + "\"")
+                .build();
     }
 
     @GET
@@ -40,20 +165,23 @@ public class RequestLogResource {
 
     @GET
     @Path("/endpoint/{endpointId}")
-    public List<RequestLog> byEndpoint(@PathParam("endpointId") Long endpointId) {
-        return requestLogService.findByEndpoint(endpointId);
+    public List<RequestLog> byEndpoint(@PathParam("endpointId") Long endpointId,
+                                       @QueryParam("limit") @DefaultValue("100") int limit) {
+        return requestLogService.findByEndpoint(endpointId, clamp(limit));
     }
 
     @GET
     @Path("/protocol/{protocol}")
-    public List<RequestLog> byProtocol(@PathParam("protocol") ProtocolType protocol) {
-        return requestLogService.findByProtocol(protocol);
+    public List<RequestLog> byProtocol(@PathParam("protocol") ProtocolType protocol,
+                                       @QueryParam("limit") @DefaultValue("100") int limit) {
+        return requestLogService.findByProtocol(protocol, clamp(limit));
     }
 
     @GET
     @Path("/matched/{matched}")
-    public List<RequestLog> byMatched(@PathParam("matched") boolean matched) {
-        return requestLogService.findMatched(matched);
+    public List<RequestLog> byMatched(@PathParam("matched") boolean matched,
+                                      @QueryParam("limit") @DefaultValue("100") int limit) {
+        return requestLogService.findMatched(matched, clamp(limit));
     }
 
     @GET
@@ -66,11 +194,28 @@ public class RequestLogResource {
         )).build();
     }
 
+    @GET
+    @Path("/retention")
+    public RequestLogRetentionService.Stats retention() {
+        return retentionService.stats();
+    }
+
+    @POST
+    @Path("/retention/run")
+    public RequestLogRetentionService.Run runRetention() {
+        return retentionService.run();
+    }
+
     @DELETE
     public Response deleteAll() {
         requestLogService.deleteAll();
         return Response.noContent().build();
     }
 
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
     public record Stats(long matched, long unmatched) {}
+    public record ErrorResponse(String error) {}
 }
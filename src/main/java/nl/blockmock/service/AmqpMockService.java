@@ -6,22 +6,21 @@ import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import nl.blockmock.domain.AmqpMockEndpoint;
 import nl.blockmock.domain.MockResponse;
 import nl.blockmock.domain.ProtocolType;
 import nl.blockmock.domain.RequestLog;
 import org.jboss.logging.Logger;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
- * Processes incoming AMQP messages: matches against enabled endpoints, logs the interaction,
- * updates metrics, and sends a reply for REQUEST_REPLY endpoints.
- * DB operations run on a worker thread via {@code vertx.executeBlocking} to avoid blocking the event loop.
+ * Processes incoming AMQP messages: matches against enabled endpoints from the in-memory
+ * {@link MockRouteTable}, logs the interaction, counts it in the {@link EndpointCounters} and
+ * {@link MockMetrics}, and sends a reply for REQUEST_REPLY endpoints.
+ * Processing runs on a worker thread via {@code vertx.executeBlocking}: queueing the log and
+ * publishing the reply may block, which the event loop must not.
  */
 @ApplicationScoped
 public class AmqpMockService {
@@ -31,20 +30,30 @@ public class AmqpMockService {
     @Inject
     Vertx vertx;
 
-    @Inject
-    AmqpMockService self;
-
     @Inject
     AmqpConnectionService amqpConnectionService;
 
     @Inject
     RequestLogService requestLogService;
 
+    @Inject
+    MockRouteTable mockRouteTable;
+
+    @Inject
+    EndpointCounters endpointCounters;
+
+    @Inject
+    EndpointLatency endpointLatency;
+
+    @Inject
+    MockMetrics mockMetrics;
+
     /**
      * Entry point — called from the Vert.x event loop.
      * Dispatches processing to a worker thread to allow blocking DB operations.
      */
     public void onMessage(String address, AmqpMessage message) {
+        long receivedNanos = System.nanoTime();
         // Capture AMQP data immediately (message may be recycled after handler returns)
         String body           = message.bodyAsString();
         String messageId      = message.id();
@@ -52,23 +61,28 @@ public class AmqpMockService {
         String replyTo        = message.replyTo();
         String subject        = message.subject();
         Map<String, String> properties = extractProperties(message);
+        long creationTime     = message.creationTime();
 
         vertx.executeBlocking(() -> {
-            self.processMessage(address, body, messageId, correlationId, replyTo, subject, properties);
+            MockRouteTable.Snapshot routes = mockRouteTable.current();
+            MockRouteTable.AmqpRoute route = routes.amqpRoutes().get(address);
+            if (route != null) {
+                mockMetrics.consumerLag(route.endpoint(), routes.block(route.endpoint().id), creationTime, receivedNanos);
+            }
+            processMessage(address, body, messageId, correlationId, replyTo, subject, properties);
             return null;
         });
     }
 
-    @Transactional
     public void processMessage(String address, String body,
                                String messageId, String correlationId,
                                String replyTo, String subject,
                                Map<String, String> properties) {
+        long start = System.nanoTime();
 
         // 1. Find matching enabled endpoint by address
-        AmqpMockEndpoint endpoint = AmqpMockEndpoint
-                .find("amqpAddress = ?1 and enabled = true", address)
-                .firstResult();
+        MockRouteTable.Snapshot routes = mockRouteTable.current();
+        MockRouteTable.AmqpRoute route = routes.amqpRoutes().get(address);
 
         // 2. Build request log
         RequestLog log = new RequestLog();
@@ -81,15 +95,19 @@ public class AmqpMockService {
         log.setAmqpProperties(properties);
         log.setRequestBody(body);
 
-        if (endpoint == null) {
+        if (route == null) {
             LOG.warnf("No AMQP endpoint found for address: %s", address);
             log.setMatched(false);
             requestLogService.log(log);
+            mockMetrics.unmatched(ProtocolType.AMQP);
             return;
         }
 
         // 3. Find matching response
-        MockResponse matchedResponse = findMatchingResponse(endpoint, body, properties);
+        AmqpMockEndpoint endpoint = route.endpoint();
+        MockResponse matchedResponse = findMatchingResponse(route, body, properties);
+        long matchingNanos = System.nanoTime() - start;
+        Long responseId = matchedResponse != null ? matchedResponse.id : null;
 
         log.setMockEndpoint(endpoint);
         log.setMockResponse(matchedResponse);
@@ -97,7 +115,9 @@ public class AmqpMockService {
         requestLogService.log(log);
 
         // 4. Update metrics
-        updateMetrics(endpoint);
+        endpointCounters.record(endpoint.id, true);
+        endpointLatency.record(endpoint.id, responseId, EndpointLatency.Phase.MATCHING, matchingNanos);
+        mockMetrics.matched(endpoint, routes.block(endpoint.id), matchedResponse, null);
 
         // 5. REQUEST_REPLY: publish reply on the reply-to address
         if ("REQUEST_REPLY".equals(endpoint.getAmqpPattern()) && replyTo != null) {
@@ -110,54 +130,18 @@ public class AmqpMockService {
                 LOG.warnf("Failed to send AMQP reply to '%s': %s", replyTo, e.getMessage());
             }
         }
+        endpointLatency.record(endpoint.id, responseId, EndpointLatency.Phase.TOTAL, System.nanoTime() - start);
     }
 
-    private MockResponse findMatchingResponse(AmqpMockEndpoint endpoint, String body,
+    private MockResponse findMatchingResponse(MockRouteTable.AmqpRoute route, String body,
                                               Map<String, String> properties) {
-        if (endpoint.getForcedResponse() != null) {
-            return endpoint.getForcedResponse();
+        if (route.forcedResponse() != null) {
+            return route.forcedResponse();
         }
-
-        List<MockResponse> responses = endpoint.getResponses().stream()
-                .sorted((a, b) -> Integer.compare(b.getPriority(), a.getPriority()))
-                .toList();
-
-        for (MockResponse response : responses) {
-            if (matchesResponse(response, body, properties)) {
-                return response;
-            }
-        }
-        return null;
-    }
-
-    private boolean matchesResponse(MockResponse response, String body, Map<String, String> properties) {
-        // Match on application properties (equivalent to HTTP headers)
-        if (response.getMatchHeaders() != null && !response.getMatchHeaders().isEmpty()) {
-            if (properties == null) return false;
-            for (Map.Entry<String, String> entry : response.getMatchHeaders().entrySet()) {
-                if (!entry.getValue().equals(properties.get(entry.getKey()))) {
-                    return false;
-                }
-            }
-        }
-
-        // Match on message body
-        if (response.getMatchBody() != null && !response.getMatchBody().isEmpty()) {
-            if (body == null) return false;
-            if (!body.contains(response.getMatchBody())) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private void updateMetrics(AmqpMockEndpoint endpoint) {
-        AmqpMockEndpoint managed = AmqpMockEndpoint.findById(endpoint.id);
-        if (managed == null) return;
-        managed.setTotalRequests(managed.getTotalRequests() + 1);
-        managed.setMatchedRequests(managed.getMatchedRequests() + 1);
-        managed.setLastRequestAt(LocalDateTime.now());
+        // Application properties play the role of HTTP headers and the address that of the path;
+        // AMQP has no method or query parameters
+        return route.responses().select(null, route.endpoint().getAmqpAddress(), properties, Map.of(),
+                new RequestBody(body));
     }
 
     private Map<String, String> extractProperties(AmqpMessage message) {
@@ -0,0 +1,267 @@
+package nl.blockmock.service;
+
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Bounded queue drained by a single background thread that hands items to a sink in batches of
+ * up to {@code batchSize}, in submission order. Producers never wait for the sink; what happens
+ * when the queue is full is decided by the {@link OverflowPolicy}.
+ * <p>
+ * {@link #flush(Duration)} waits until everything accepted so far has been handed to the sink, and
+ * {@link #close(Duration)} stops accepting items and drains the queue before returning.
+ */
+public final class BatchingQueue<T> {
+
+    private static final Logger LOG = Logger.getLogger(BatchingQueue.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    public enum OverflowPolicy {
+        /** Producers wait for space: nothing is lost, but a slow sink slows callers down. */
+        BLOCK,
+        /** Items that do not fit are dropped. */
+        DROP,
+        /**
+         * Once the queue is half full only every {@code sampleRate}-th item is kept; the rest,
+         * and anything that does not fit, is dropped.
+         */
+        SAMPLE,
+        /**
+         * Items that do not fit, or arrive after {@link #close}, are handed to the overflow
+         * handler; only those it refuses are dropped.
+         */
+        SPILL
+    }
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final Consumer<List<T>> sink;
+    private final Predicate<T> overflow;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+    private long processed;
+
+    private volatile boolean closed;
+    private Thread worker;
+
+    public BatchingQueue(String name, int capacity, int batchSize, OverflowPolicy policy, int sampleRate,
+                         Consumer<List<T>> sink) {
+        this(name, capacity, batchSize, policy, sampleRate, sink, item -> false);
+    }
+
+    /** With an overflow handler for the {@link OverflowPolicy#SPILL} policy. */
+    public BatchingQueue(String name, int capacity, int batchSize, OverflowPolicy policy, int sampleRate,
+                         Consumer<List<T>> sink, Predicate<T> overflow) {
+        if (capacity < 1 || batchSize < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and sampleRate must be positive");
+        }
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.sink = sink;
+        this.overflow = overflow;
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submits an item. Returns {@code false} if it was dropped by the overflow policy or
+     * because the queue is closed.
+     */
+    public boolean offer(T item) {
+        if (closed) {
+            return spillOrDrop(item);
+        }
+        boolean queued = switch (policy) {
+            case BLOCK -> put(item);
+            case DROP, SPILL -> queue.offer(item);
+            case SAMPLE -> (queue.size() < capacity / 2 || sampled.incrementAndGet() % sampleRate == 0)
+                    && queue.offer(item);
+        };
+        if (!queued) {
+            return spillOrDrop(item);
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    private boolean put(T item) {
+        try {
+            queue.put(item);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean spillOrDrop(T item) {
+        if (policy == OverflowPolicy.SPILL && overflow.test(item)) {
+            spilled.incrementAndGet();
+            return true;
+        }
+        return drop();
+    }
+
+    private boolean drop() {
+        long count = dropped.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+            LOG.warnf("%s: queue full or closed (%s policy), %d items dropped so far", name, policy, count);
+        }
+        return false;
+    }
+
+    /**
+     * Waits until every item accepted before this call has been handed to the sink.
+     *
+     * @return {@code false} if the timeout elapsed first
+     */
+    public boolean flush(Duration timeout) {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        progressLock.lock();
+        try {
+            while (processed < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting items, lets the worker drain the queue and waits for it to finish.
+     *
+     * @return {@code false} if the worker did not finish within the timeout; items it had not
+     *         reached by then are not written
+     */
+    public boolean close(Duration timeout) {
+        closed = true;
+        Thread thread;
+        synchronized (this) {
+            thread = worker;
+        }
+        if (thread != null) {
+            try {
+                thread.join(timeout.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                LOG.warnf("%s: worker did not finish within %s", name, timeout);
+                return false;
+            }
+        }
+        // Items that raced with close(), or everything if the worker was never started
+        List<T> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+        return true;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public long accepted() {
+        return accepted.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /** Items handed to the overflow handler instead of the queue. */
+    public long spilled() {
+        return spilled.get();
+    }
+
+    /** Items handed to the sink in a batch that threw. */
+    public long failed() {
+        return failed.get();
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (true) {
+            T first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    first = queue.poll();
+                } else {
+                    continue;
+                }
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+        }
+    }
+
+    private void write(List<T> batch) {
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            LOG.errorf(e, "%s: failed to write a batch of %d items", name, batch.size());
+        }
+        progressLock.lock();
+        try {
+            processed += batch.size();
+            progress.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+        batch.clear();
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Set;
  * CRUD and lifecycle management for blocks.
  * A block groups mock endpoints together; starting/stopping a block enables or disables
  * all its endpoints and activates or deactivates AMQP consumers where applicable.
+ * Changes to block names or membership also rebuild the {@link MockRouteTable}, which carries the
+ * block names that traffic metrics are tagged with.
  */
 @ApplicationScoped
 public class BlockService {
@@ -25,6 +27,9 @@ public class BlockService {
     @Inject
     AmqpConnectionService amqpConnectionService;
 
+    @Inject
+    MockRouteTable mockRouteTable;
+
     @Transactional
     public Block create(Block block) {
         block.persist();
@@ -33,12 +38,14 @@ public class BlockService {
 
     @Transactional
     public Block update(Block block) {
+        mockRouteTable.invalidate();
         return Block.getEntityManager().merge(block);
     }
 
     @Transactional
     public void delete(Long id) {
         Block.deleteById(id);
+        mockRouteTable.invalidate();
     }
 
     public Optional<Block> findById(Long id) {
@@ -67,6 +74,7 @@ public class BlockService {
 
         block.addEndpoint(endpoint);
         block.persist();
+        mockRouteTable.invalidate();
     }
 
     @Transactional
@@ -83,6 +91,7 @@ public class BlockService {
 
         block.removeEndpoint(endpoint);
         block.persist();
+        mockRouteTable.invalidate();
     }
 
     /**
@@ -104,6 +113,7 @@ public class BlockService {
                 amqpConnectionService.startConsumer(amqp);
             }
         }
+        mockRouteTable.invalidate();
     }
 
     /**
@@ -125,6 +135,7 @@ public class BlockService {
                 amqpConnectionService.stopConsumer(amqp);
             }
         }
+        mockRouteTable.invalidate();
     }
 
     private boolean isConsumerPattern(AmqpMockEndpoint endpoint) {
@@ -0,0 +1,110 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.RequestLog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of request log bodies. Bodies of at least {@code threshold} UTF-8 bytes are
+ * moved from the {@code TEXT} columns into the {@code *_compressed} columns (when that saves
+ * space), with the original length kept alongside. Compressed bodies are lazily loaded and only
+ * inflated on demand: for a single log ({@link RequestLogService#findById}) and for body checks of
+ * test expectations.
+ */
+final class BodyCompression {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private BodyCompression() {
+    }
+
+    /** Compresses the request and inline response body of {@code log} if they are large enough. */
+    static void compress(RequestLog log, int threshold) {
+        if (threshold <= 0) {
+            return;
+        }
+        byte[] request = utf8IfLarge(log.getRequestBody(), threshold);
+        if (request != null) {
+            byte[] deflated = deflate(request);
+            if (deflated.length < request.length) {
+                log.setRequestBody(null);
+                log.setRequestBodyCompressed(deflated);
+                log.setRequestBodyLength(request.length);
+            }
+        }
+        // Snapshot-backed response payloads are stored once already
+        if (log.getResponseSnapshotHash() == null) {
+            byte[] response = utf8IfLarge(log.getResponseBody(), threshold);
+            if (response != null) {
+                byte[] deflated = deflate(response);
+                if (deflated.length < response.length) {
+                    log.setResponseBody(null);
+                    log.setResponseBodyCompressed(deflated);
+                    log.setResponseBodyLength(response.length);
+                }
+            }
+        }
+    }
+
+    /** The request body, inflated if it was stored compressed. Loads the compressed column. */
+    static String requestBody(RequestLog log) {
+        byte[] compressed = log.getRequestBodyCompressed();
+        return compressed != null ? inflate(compressed, log.getRequestBodyLength()) : log.getRequestBody();
+    }
+
+    /** The response body, inflated if it was stored compressed. Loads the compressed column. */
+    static String responseBody(RequestLog log) {
+        byte[] compressed = log.getResponseBodyCompressed();
+        return compressed != null ? inflate(compressed, log.getResponseBodyLength()) : log.getResponseBody();
+    }
+
+    private static byte[] utf8IfLarge(String text, int threshold) {
+        // A char encodes to at most three bytes, so shorter strings can be ruled out without encoding
+        if (text == null || text.length() * 3L < threshold) {
+            return null;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return bytes.length >= threshold ? bytes : null;
+    }
+
+    static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String inflate(byte[] input, Integer length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length != null ? length : input.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed body");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package nl.blockmock.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters of mock endpoints ({@code total_requests}, {@code matched_requests},
+ * {@code unmatched_requests}, {@code last_request_at}), kept in memory and added to
+ * {@code mock_endpoint} in one batched {@code UPDATE} every {@code flush-interval}. Mock traffic
+ * only touches striped {@link LongAdder}s, so hits on one endpoint neither take a row lock nor
+ * cost a database write, and scale with cores.
+ * <p>
+ * Counters read from the database lag behind by at most one flush interval. Deltas of a failed
+ * flush are kept for the next one; pending deltas are flushed on shutdown. Counters of deleted
+ * endpoints are dropped on delete, and by the next flush if requests still arrived meanwhile.
+ */
+@ApplicationScoped
+public class EndpointCounters {
+
+    private static final Logger LOG = Logger.getLogger(EndpointCounters.class);
+
+    private static final String FLUSH_SQL = "UPDATE mock_endpoint e SET "
+            + "total_requests = COALESCE(e.total_requests, 0) + d.total, "
+            + "matched_requests = COALESCE(e.matched_requests, 0) + d.matched, "
+            + "unmatched_requests = COALESCE(e.unmatched_requests, 0) + d.unmatched, "
+            + "last_request_at = GREATEST(e.last_request_at, d.last_request_at) "
+            + "FROM unnest(?, ?, ?, ?, ?) AS d(id, total, matched, unmatched, last_request_at) "
+            + "WHERE e.id = d.id RETURNING e.id";
+
+    /** Pending deltas of one endpoint. */
+    static final class Counter {
+        final LongAdder matched = new LongAdder();
+        final LongAdder unmatched = new LongAdder();
+        final LongAccumulator lastRequestAt = new LongAccumulator(Math::max, 0);
+    }
+
+    /** Counts drained for one endpoint; {@code lastRequestAt} in epoch milliseconds, 0 if none. */
+    record Delta(long endpointId, long matched, long unmatched, long lastRequestAt) {}
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /** Counts one request to an endpoint. */
+    public void record(Long endpointId, boolean matched) {
+        if (endpointId == null) {
+            return;
+        }
+        Counter counter = counters.computeIfAbsent(endpointId, id -> new Counter());
+        (matched ? counter.matched : counter.unmatched).increment();
+        counter.lastRequestAt.accumulate(System.currentTimeMillis());
+    }
+
+    /** Drops the counter of a deleted endpoint, including deltas not flushed yet. */
+    public void forget(Long endpointId) {
+        counters.remove(endpointId);
+    }
+
+    @Scheduled(every = "${blockmock.endpoint-counters.flush-interval:5s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    /** Adds the pending counts to {@code mock_endpoint}. Failures are logged and the counts kept. */
+    public synchronized void flush() {
+        List<Delta> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Long> updated = write(deltas);
+            for (Delta delta : deltas) {
+                if (!updated.contains(delta.endpointId())) {
+                    forget(delta.endpointId());
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warnf("Flushing request counters of %d endpoints failed, will retry: %s", deltas.size(), e.getMessage());
+            restore(deltas);
+        }
+    }
+
+    /** Takes the counts recorded so far; counts recorded meanwhile are left for the next drain. */
+    List<Delta> drain() {
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long matched = counter.matched.sumThenReset();
+            long unmatched = counter.unmatched.sumThenReset();
+            if (matched != 0 || unmatched != 0) {
+                deltas.add(new Delta(entry.getKey(), matched, unmatched, counter.lastRequestAt.get()));
+            }
+        }
+        return deltas;
+    }
+
+    /** Puts drained counts back, e.g. after a failed write. */
+    void restore(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            Counter counter = counters.computeIfAbsent(delta.endpointId(), id -> new Counter());
+            counter.matched.add(delta.matched());
+            counter.unmatched.add(delta.unmatched());
+            counter.lastRequestAt.accumulate(delta.lastRequestAt());
+        }
+    }
+
+    /** Returns the ids of the endpoints that still exist. */
+    private Set<Long> write(List<Delta> deltas) throws SQLException {
+        int size = deltas.size();
+        Long[] ids = new Long[size];
+        Long[] totals = new Long[size];
+        Long[] matched = new Long[size];
+        Long[] unmatched = new Long[size];
+        Timestamp[] lastRequestAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            Delta delta = deltas.get(i);
+            ids[i] = delta.endpointId();
+            totals[i] = delta.matched() + delta.unmatched();
+            matched[i] = delta.matched();
+            unmatched[i] = delta.unmatched();
+            lastRequestAt[i] = delta.lastRequestAt() > 0 ? Timestamp.valueOf(toLocalDateTime(delta.lastRequestAt())) : null;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FLUSH_SQL)) {
+            Array[] arrays = {
+                    connection.createArrayOf("bigint", ids),
+                    connection.createArrayOf("bigint", totals),
+                    connection.createArrayOf("bigint", matched),
+                    connection.createArrayOf("bigint", unmatched),
+                    connection.createArrayOf("timestamp", lastRequestAt)
+            };
+            for (int i = 0; i < arrays.length; i++) {
+                statement.setArray(i + 1, arrays[i]);
+            }
+            Set<Long> updated = new HashSet<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    updated.add(rs.getLong(1));
+                }
+            }
+            return updated;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,103 @@
+package nl.blockmock.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency of mock traffic per endpoint and per {@code MockResponse}, in {@link LatencyHistogram}s
+ * per {@link Phase}: time spent matching the request, the configured response delay, and total
+ * service time. Reported as p50/p90/p99/p99.9/max over sliding windows of {@link #WINDOWS}
+ * minutes, to check that the mock itself does not distort performance tests. Only matched
+ * requests are recorded; nothing is persisted.
+ */
+@ApplicationScoped
+public class EndpointLatency {
+
+    public enum Phase {
+        /** Finding the endpoint and selecting the response. */
+        MATCHING,
+        /** The response's configured delay. */
+        DELAY,
+        /** From receiving the request until the response is ready to send. */
+        TOTAL
+    }
+
+    /** Reported window lengths in minutes. */
+    static final int[] WINDOWS = {1, 5, 15};
+
+    /** Percentiles in milliseconds over one window; all zero without values. */
+    public record Percentiles(long count, double p50, double p90, double p99, double p999, double max) {}
+
+    /** Per window ({@code "1m"}, {@code "5m"}, {@code "15m"}) the percentiles of each phase. */
+    public record ResponseLatency(Long responseId, Map<String, Map<Phase, Percentiles>> windows) {}
+
+    public record Report(Long endpointId, Map<String, Map<Phase, Percentiles>> windows,
+                         List<ResponseLatency> responses) {}
+
+    private static final class Histograms {
+        final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+        Histograms() {
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new LatencyHistogram());
+            }
+        }
+    }
+
+    private static final class EndpointHistograms {
+        final Histograms endpoint = new Histograms();
+        final Map<Long, Histograms> responses = new ConcurrentHashMap<>();
+    }
+
+    private final Map<Long, EndpointHistograms> endpoints = new ConcurrentHashMap<>();
+
+    /** Records one duration of a matched request; {@code responseId} may be null. */
+    public void record(Long endpointId, Long responseId, Phase phase, long nanos) {
+        if (endpointId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long micros = nanos / 1000;
+        EndpointHistograms histograms = endpoints.computeIfAbsent(endpointId, id -> new EndpointHistograms());
+        histograms.endpoint.phases.get(phase).record(micros, now);
+        if (responseId != null) {
+            histograms.responses.computeIfAbsent(responseId, id -> new Histograms()).phases.get(phase).record(micros, now);
+        }
+    }
+
+    /** Latency of an endpoint and its responses; empty windows if it saw no traffic. */
+    public Report report(Long endpointId) {
+        long now = System.currentTimeMillis();
+        EndpointHistograms histograms = endpoints.get(endpointId);
+        if (histograms == null) {
+            return new Report(endpointId, windows(new Histograms(), now), List.of());
+        }
+        List<ResponseLatency> responses = new ArrayList<>();
+        histograms.responses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .forEach(entry -> responses.add(new ResponseLatency(entry.getKey(), windows(entry.getValue(), now))));
+        return new Report(endpointId, windows(histograms.endpoint, now), responses);
+    }
+
+    /** Drops the histograms of a deleted endpoint. */
+    public void forget(Long endpointId) {
+        endpoints.remove(endpointId);
+    }
+
+    private static Map<String, Map<Phase, Percentiles>> windows(Histograms histograms, long now) {
+        Map<String, Map<Phase, Percentiles>> windows = new LinkedHashMap<>();
+        for (int minutes : WINDOWS) {
+            Map<Phase, Percentiles> phases = new EnumMap<>(Phase.class);
+            histograms.phases.forEach((phase, histogram) -> phases.put(phase, histogram.percentiles(minutes, now)));
+            windows.put(minutes + "m", phases);
+        }
+        return windows;
+    }
+}
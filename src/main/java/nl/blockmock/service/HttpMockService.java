@@ -2,54 +2,54 @@ package nl.blockmock.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import nl.blockmock.domain.HttpMockEndpoint;
 import nl.blockmock.domain.MockEndpoint;
 import nl.blockmock.domain.MockResponse;
 import nl.blockmock.domain.ProtocolType;
 import nl.blockmock.domain.RequestLog;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * Matches incoming HTTP requests against enabled endpoints, selects a response,
- * logs the interaction, and updates endpoint metrics.
+ * logs the interaction, and counts it in the {@link EndpointCounters} and {@link MockMetrics}.
+ * Endpoints are read from the in-memory {@link MockRouteTable} snapshot, not from the database.
  * Unmatched requests return HTTP 404 and are logged as unmatched.
  */
 @ApplicationScoped
 public class HttpMockService {
 
     @Inject
-    MockEndpointService mockEndpointService;
+    MockRouteTable mockRouteTable;
 
     @Inject
     RequestLogService requestLogService;
 
-    @Transactional
+    @Inject
+    EndpointCounters endpointCounters;
+
+    @Inject
+    EndpointLatency endpointLatency;
+
+    @Inject
+    MockMetrics mockMetrics;
+
     public HttpMockResponse handleRequest(String method, String path,
                                          Map<String, String> headers,
                                          Map<String, String> queryParams,
                                          String body,
                                          String clientIp) {
 
-        List<MockEndpoint> endpoints = mockEndpointService.findEnabledByProtocol(ProtocolType.HTTP);
+        long matchingStart = System.nanoTime();
+        RequestBody requestBody = new RequestBody(body);
+        MockRouteTable.Snapshot routes = mockRouteTable.current();
+        HttpRouter.Match match = routes.router().find(method, path,
+                route -> findMatchingResponse(route, method, path, headers, queryParams, requestBody));
+        long matchingNanos = System.nanoTime() - matchingStart;
 
-        HttpMockEndpoint matchedEndpoint = null;
-        MockResponse matchedResponse = null;
-
-        for (MockEndpoint endpoint : endpoints) {
-            if (endpoint instanceof HttpMockEndpoint http && matchesEndpoint(http, method, path)) {
-                matchedResponse = findMatchingResponse(endpoint, headers, queryParams, body);
-                if (matchedResponse != null) {
-                    matchedEndpoint = http;
-                    break;
-                }
-            }
-        }
+        HttpMockEndpoint matchedEndpoint = match != null ? match.route().endpoint() : null;
+        MockResponse matchedResponse = match != null ? match.response() : null;
 
         RequestLog log = createRequestLog(matchedEndpoint, matchedResponse,
                                          method, path, headers, queryParams, body, clientIp);
@@ -57,18 +57,25 @@ public class HttpMockService {
         if (matchedResponse != null) {
             log.setMatched(true);
             log.setResponseStatusCode(matchedResponse.getResponseStatusCode());
-            log.setResponseHeaders(matchedResponse.getResponseHeaders());
-            log.setResponseBody(matchedResponse.getResponseBody());
+            setResponsePayload(log, routes, matchedResponse);
             log.setResponseDelayMs(matchedResponse.getResponseDelayMs());
 
             requestLogService.log(log);
-            updateMetrics(matchedEndpoint, true);
+            endpointCounters.record(matchedEndpoint.id, true);
+
+            int delayMs = matchedResponse.getResponseDelayMs() != null ? matchedResponse.getResponseDelayMs() : 0;
+            endpointLatency.record(matchedEndpoint.id, matchedResponse.id, EndpointLatency.Phase.MATCHING, matchingNanos);
+            endpointLatency.record(matchedEndpoint.id, matchedResponse.id, EndpointLatency.Phase.DELAY,
+                    delayMs * 1_000_000L);
+            mockMetrics.matched(matchedEndpoint, routes.block(matchedEndpoint.id), matchedResponse, delayMs);
 
             return new HttpMockResponse(
                 matchedResponse.getResponseStatusCode() != null ? matchedResponse.getResponseStatusCode() : 200,
                 matchedResponse.getResponseHeaders() != null ? matchedResponse.getResponseHeaders() : new HashMap<>(),
                 matchedResponse.getResponseBody(),
-                matchedResponse.getResponseDelayMs() != null ? matchedResponse.getResponseDelayMs() : 0
+                delayMs,
+                matchedEndpoint.id,
+                matchedResponse.id
             );
         }
 
@@ -77,115 +84,33 @@ public class HttpMockService {
         log.setResponseBody("No mock found for: " + method + " " + path);
 
         requestLogService.log(log);
+        mockMetrics.unmatched(ProtocolType.HTTP);
 
         return new HttpMockResponse(404, new HashMap<>(),
-                                   "No mock found for: " + method + " " + path, 0);
+                                   "No mock found for: " + method + " " + path, 0, null, null);
     }
 
-    private boolean matchesEndpoint(HttpMockEndpoint endpoint, String method, String path) {
-        if (endpoint.getHttpMethod() == null || endpoint.getHttpPath() == null) {
-            return false;
-        }
-
-        if (!endpoint.getHttpMethod().name().equalsIgnoreCase(method)) {
-            return false;
-        }
-
-        if (Boolean.TRUE.equals(endpoint.getHttpPathRegex())) {
-            Pattern pattern = Pattern.compile(endpoint.getHttpPath());
-            return pattern.matcher(path).matches();
-        } else {
-            return endpoint.getHttpPath().equals(path);
-        }
-    }
-
-    private MockResponse findMatchingResponse(MockEndpoint endpoint,
+    private MockResponse findMatchingResponse(MockRouteTable.HttpRoute route,
+                                              String method,
+                                              String path,
                                               Map<String, String> headers,
                                               Map<String, String> queryParams,
-                                              String body) {
-        if (endpoint.getForcedResponse() != null) {
-            return endpoint.getForcedResponse();
-        }
-
-        List<MockResponse> responses = endpoint.getResponses().stream()
-                .sorted((r1, r2) -> Integer.compare(r2.getPriority(), r1.getPriority()))
-                .toList();
-
-        for (MockResponse response : responses) {
-            if (matchesResponse(response, headers, queryParams, body)) {
-                return response;
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Checks whether a request matches a response's criteria. Body matching supports
-     * substring match or regex when the pattern is wrapped in {@code /pattern/}.
-     * A response with no criteria set matches any request.
-     */
-    private boolean matchesResponse(MockResponse response,
-                                    Map<String, String> headers,
-                                    Map<String, String> queryParams,
-                                    String body) {
-        if (response.getMatchHeaders() != null && !response.getMatchHeaders().isEmpty()) {
-            for (Map.Entry<String, String> entry : response.getMatchHeaders().entrySet()) {
-                String headerValue = headers.get(entry.getKey().toLowerCase());
-                if (headerValue == null || !headerValue.equals(entry.getValue())) {
-                    return false;
-                }
-            }
-        }
-
-        if (response.getMatchQueryParams() != null && !response.getMatchQueryParams().isEmpty()) {
-            for (Map.Entry<String, String> entry : response.getMatchQueryParams().entrySet()) {
-                String paramValue = queryParams.get(entry.getKey());
-                if (paramValue == null || !paramValue.equals(entry.getValue())) {
-                    return false;
-                }
-            }
+                                              RequestBody body) {
+        if (route.forcedResponse() != null) {
+            return route.forcedResponse();
         }
-
-        if (response.getMatchBody() != null && !response.getMatchBody().isEmpty()) {
-            if (body == null) {
-                return false;
-            }
-
-            String matchPattern = response.getMatchBody();
-
-            if (matchPattern.startsWith("/") && matchPattern.endsWith("/") && matchPattern.length() > 2) {
-                String regex = matchPattern.substring(1, matchPattern.length() - 1);
-                try {
-                    if (!Pattern.compile(regex).matcher(body).find()) {
-                        return false;
-                    }
-                } catch (Exception e) {
-                    if (!body.equals(matchPattern)) {
-                        return false;
-                    }
-                }
-            } else {
-                if (!body.contains(matchPattern)) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return route.responses().select(method, path, headers, queryParams, body);
     }
 
-    private void updateMetrics(MockEndpoint endpoint, boolean matched) {
-        if (endpoint == null) return;
-        MockEndpoint managed = MockEndpoint.findById(endpoint.id);
-        if (managed == null) return;
-        managed.setTotalRequests(managed.getTotalRequests() + 1);
-        if (matched) {
-            managed.setMatchedRequests(managed.getMatchedRequests() + 1);
+    /** References the response's stored snapshot, or copies the payload if it has none. */
+    private void setResponsePayload(RequestLog log, MockRouteTable.Snapshot routes, MockResponse response) {
+        ResponseSnapshot snapshot = routes.responseSnapshot(response);
+        if (snapshot != null) {
+            snapshot.applyTo(log);
         } else {
-            managed.setUnmatchedRequests(managed.getUnmatchedRequests() + 1);
+            log.setResponseHeaders(response.getResponseHeaders());
+            log.setResponseBody(response.getResponseBody());
         }
-        managed.setLastRequestAt(LocalDateTime.now());
     }
 
     private RequestLog createRequestLog(MockEndpoint endpoint, MockResponse response,
@@ -211,6 +136,8 @@ public class HttpMockService {
         int statusCode,
         Map<String, String> headers,
         String body,
-        int delayMs
+        int delayMs,
+        Long endpointId,
+        Long responseId
     ) {}
 }
@@ -0,0 +1,219 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.HttpMethod;
+import nl.blockmock.domain.MockResponse;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable request router built from a {@link MockRouteTable} snapshot.
+ * Exact-path routes live in a radix tree per {@link HttpMethod}, so looking them up costs
+ * O(path length) regardless of the number of endpoints. Regex routes ({@code httpPathRegex=true})
+ * are partitioned by their {@link MockPatterns#literalPrefix literal prefix} in a second radix
+ * tree: a single walk over the path yields only the regex routes whose prefix the path starts
+ * with, so a request that misses every route does not run every pattern.
+ * <p>
+ * First-match semantics are the same as a linear scan over the snapshot: exact and regex
+ * candidates are merged by their {@link MockRouteTable.HttpRoute#order() order}, and the first
+ * candidate for which the response selector returns a response wins.
+ */
+public final class HttpRouter {
+
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+
+    private final Map<HttpMethod, RadixNode> exactRoutes = new EnumMap<>(HttpMethod.class);
+    private final Map<HttpMethod, RadixNode> regexRoutes = new EnumMap<>(HttpMethod.class);
+
+    public HttpRouter(List<MockRouteTable.HttpRoute> routes) {
+        for (MockRouteTable.HttpRoute route : routes) {
+            HttpMethod method = route.endpoint().getHttpMethod();
+            String path = route.endpoint().getHttpPath();
+            if (method == null || path == null) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(route.endpoint().getHttpPathRegex())) {
+                if (route.pathPattern() != null) {
+                    regexRoutes.computeIfAbsent(method, m -> new RadixNode(""))
+                            .insert(MockPatterns.literalPrefix(path), 0, route);
+                }
+            } else {
+                exactRoutes.computeIfAbsent(method, m -> new RadixNode("")).insert(path, 0, route);
+            }
+        }
+        regexRoutes.values().forEach(root -> root.accumulatePrefixRoutes(RadixNode.NO_ROUTES));
+    }
+
+    /**
+     * Returns the first route (in snapshot order) whose path matches and for which
+     * {@code responseSelector} yields a response, or {@code null} if there is none.
+     */
+    public Match find(String method, String path,
+                      Function<MockRouteTable.HttpRoute, MockResponse> responseSelector) {
+        HttpMethod httpMethod = parseMethod(method);
+        if (httpMethod == null) {
+            return null;
+        }
+
+        RadixNode exactRoot = exactRoutes.get(httpMethod);
+        RadixNode regexRoot = regexRoutes.get(httpMethod);
+        MockRouteTable.HttpRoute[] exact = exactRoot != null ? exactRoot.lookup(path) : RadixNode.NO_ROUTES;
+        MockRouteTable.HttpRoute[] regex = regexRoot != null ? regexRoot.lookupPrefixRoutes(path) : RadixNode.NO_ROUTES;
+
+        int e = 0;
+        int r = 0;
+        while (e < exact.length || r < regex.length) {
+            MockRouteTable.HttpRoute candidate;
+            if (r >= regex.length || (e < exact.length && exact[e].order() < regex[r].order())) {
+                candidate = exact[e++];
+            } else {
+                candidate = regex[r++];
+                if (!candidate.pathPattern().matcher(path).matches()) {
+                    continue;
+                }
+            }
+            MockResponse response = responseSelector.apply(candidate);
+            if (response != null) {
+                return new Match(candidate, response);
+            }
+        }
+        return null;
+    }
+
+    private static HttpMethod parseMethod(String method) {
+        for (HttpMethod candidate : METHODS) {
+            if (candidate.name().equalsIgnoreCase(method)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public record Match(MockRouteTable.HttpRoute route, MockResponse response) {}
+
+    /**
+     * Compressed trie node. Each edge carries a label of one or more characters; children are
+     * kept sorted by the first character of their label and found by binary search.
+     * For the regex tree, {@code prefixRoutes} holds the routes of this node and all its
+     * ancestors in first-match order, so a prefix lookup needs no merging at request time.
+     */
+    private static final class RadixNode {
+
+        static final MockRouteTable.HttpRoute[] NO_ROUTES = new MockRouteTable.HttpRoute[0];
+
+        private String label;
+        private char[] firstChars = new char[0];
+        private RadixNode[] children = new RadixNode[0];
+        private MockRouteTable.HttpRoute[] routes = NO_ROUTES;
+        private MockRouteTable.HttpRoute[] prefixRoutes = NO_ROUTES;
+
+        RadixNode(String label) {
+            this.label = label;
+        }
+
+        void insert(String path, int offset, MockRouteTable.HttpRoute route) {
+            if (offset == path.length()) {
+                routes = Arrays.copyOf(routes, routes.length + 1);
+                routes[routes.length - 1] = route;
+                return;
+            }
+            int index = indexOf(path.charAt(offset));
+            if (index < 0) {
+                RadixNode leaf = new RadixNode(path.substring(offset));
+                leaf.insert(path, path.length(), route);
+                addChild(leaf);
+                return;
+            }
+            RadixNode child = children[index];
+            int common = commonPrefixLength(child.label, path, offset);
+            if (common < child.label.length()) {
+                RadixNode split = new RadixNode(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.addChild(child);
+                children[index] = split;
+                child = split;
+            }
+            child.insert(path, offset + common, route);
+        }
+
+        MockRouteTable.HttpRoute[] lookup(String path) {
+            RadixNode node = this;
+            int offset = 0;
+            while (offset < path.length()) {
+                int index = node.indexOf(path.charAt(offset));
+                if (index < 0) {
+                    return NO_ROUTES;
+                }
+                RadixNode child = node.children[index];
+                if (!path.regionMatches(offset, child.label, 0, child.label.length())) {
+                    return NO_ROUTES;
+                }
+                offset += child.label.length();
+                node = child;
+            }
+            return node.routes;
+        }
+
+        /** Returns {@code prefixRoutes} of the deepest node whose key is a prefix of {@code path}. */
+        MockRouteTable.HttpRoute[] lookupPrefixRoutes(String path) {
+            RadixNode node = this;
+            int offset = 0;
+            while (offset < path.length()) {
+                int index = node.indexOf(path.charAt(offset));
+                if (index < 0) {
+                    break;
+                }
+                RadixNode child = node.children[index];
+                if (!path.regionMatches(offset, child.label, 0, child.label.length())) {
+                    break;
+                }
+                offset += child.label.length();
+                node = child;
+            }
+            return node.prefixRoutes;
+        }
+
+        void accumulatePrefixRoutes(MockRouteTable.HttpRoute[] inherited) {
+            MockRouteTable.HttpRoute[] merged = Arrays.copyOf(inherited, inherited.length + routes.length);
+            System.arraycopy(routes, 0, merged, inherited.length, routes.length);
+            Arrays.sort(merged, Comparator.comparingInt(MockRouteTable.HttpRoute::order));
+            prefixRoutes = merged;
+            for (RadixNode child : children) {
+                child.accumulatePrefixRoutes(merged);
+            }
+        }
+
+        private int indexOf(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? index : -1;
+        }
+
+        private void addChild(RadixNode child) {
+            char c = child.label.charAt(0);
+            int insertAt = -(Arrays.binarySearch(firstChars, c) + 1);
+            char[] newFirstChars = new char[firstChars.length + 1];
+            RadixNode[] newChildren = new RadixNode[children.length + 1];
+            System.arraycopy(firstChars, 0, newFirstChars, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newFirstChars[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(firstChars, insertAt, newFirstChars, insertAt + 1, firstChars.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            firstChars = newFirstChars;
+            children = newChildren;
+        }
+
+        private static int commonPrefixLength(String label, String path, int offset) {
+            int max = Math.min(label.length(), path.length() - offset);
+            int i = 0;
+            while (i < max && label.charAt(i) == path.charAt(offset + i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
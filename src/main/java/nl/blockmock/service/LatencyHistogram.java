@@ -0,0 +1,130 @@
+package nl.blockmock.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * HDR-style latency histogram over a sliding time window. Values in microseconds are counted in
+ * log-linear buckets: exact below {@value #SUB_BUCKETS}, above that each power of two is split
+ * into {@value #HALF} buckets, so every value is reported within about 3%. Values above
+ * {@link #MAX_VALUE} (about 36 minutes) count as {@code MAX_VALUE}.
+ * <p>
+ * Counts are kept per one-minute slice, {@value #SLICES} slices deep; a slice is allocated on the
+ * first value of its minute. Recording is lock-free. A window of {@code n} minutes merges the
+ * current minute so far with the {@code n} minutes before it.
+ */
+final class LatencyHistogram {
+
+    static final int SUB_BUCKETS = 64;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    static final long MAX_VALUE = (1L << 31) - 1;
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    /** The longest window, in minutes. */
+    static final int MAX_WINDOW = 15;
+    private static final int SLICES = MAX_WINDOW + 1;
+
+    private static final long SLICE_MILLIS = 60_000;
+
+    private static final class Slice {
+        final long minute;
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Slice(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private final AtomicReferenceArray<Slice> slices = new AtomicReferenceArray<>(SLICES);
+
+    void record(long micros, long nowMillis) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        Slice slice = slice(nowMillis / SLICE_MILLIS);
+        slice.counts.incrementAndGet(index(value));
+        slice.max.accumulate(value);
+    }
+
+    /** Percentiles of the values recorded in the current minute and the {@code minutes} before it. */
+    EndpointLatency.Percentiles percentiles(int minutes, long nowMillis) {
+        if (minutes < 1 || minutes > MAX_WINDOW) {
+            throw new IllegalArgumentException("Window must be 1-" + MAX_WINDOW + " minutes");
+        }
+        long current = nowMillis / SLICE_MILLIS;
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long max = 0;
+        for (int i = 0; i < SLICES; i++) {
+            Slice slice = slices.get(i);
+            if (slice == null || slice.minute > current || slice.minute < current - minutes) {
+                continue;
+            }
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                long n = slice.counts.get(bucket);
+                merged[bucket] += n;
+                count += n;
+            }
+            max = Math.max(max, slice.max.get());
+        }
+        if (count == 0) {
+            return new EndpointLatency.Percentiles(0, 0, 0, 0, 0, 0);
+        }
+        return new EndpointLatency.Percentiles(count,
+                millis(valueAt(merged, count, 0.50, max)),
+                millis(valueAt(merged, count, 0.90, max)),
+                millis(valueAt(merged, count, 0.99, max)),
+                millis(valueAt(merged, count, 0.999, max)),
+                millis(max));
+    }
+
+    private Slice slice(long minute) {
+        int i = (int) (minute % SLICES);
+        while (true) {
+            Slice slice = slices.get(i);
+            if (slice != null && slice.minute >= minute) {
+                return slice;
+            }
+            // A late recorder of an older minute may end up in the newer slice; that is one value off by a minute
+            if (slices.compareAndSet(i, slice, new Slice(minute))) {
+                return slices.get(i);
+            }
+        }
+    }
+
+    /** The highest value of the bucket holding the given quantile, capped at the exact maximum. */
+    private static long valueAt(long[] counts, long total, double quantile, long max) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long sub = index - shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
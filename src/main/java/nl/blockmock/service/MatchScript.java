@@ -0,0 +1,513 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled {@code matchScript} of a mock response: a small boolean expression over the request, e.g.
+ * <pre>
+ * method == 'POST' &amp;&amp; headers['x-tenant'] == 'acme' &amp;&amp; (json.order.total &gt; 100 || query.vip == 'true')
+ * </pre>
+ * Operands are string literals, numbers, {@code null}, {@code method}, {@code path}, {@code body},
+ * {@code headers.name} / {@code headers['Name']}, {@code query.name} and {@code json.a.b[0]} /
+ * {@code json['a']}. Operators are {@code == != < <= > >=}, {@code =~ 'regex'} (find),
+ * {@code contains}, {@code startsWith}, {@code endsWith}, {@code && || !} and parentheses. An
+ * operand on its own tests for presence. Relational operators compare numerically, as does
+ * {@code ==} when one side is a number literal. String literals use single or double quotes and
+ * a backslash escapes the next character, so a regex digit class is written {@code '\\d'}.
+ * <p>
+ * A script is parsed once into a tree of lambdas and can then be evaluated concurrently. Each
+ * evaluation is limited to a budget of steps (one per node, plus one per character a regex
+ * inspects), so a pathological pattern cannot hold a request thread; a script that runs out of
+ * budget does not match.
+ */
+public final class MatchScript {
+
+    private static final Logger LOG = Logger.getLogger(MatchScript.class);
+
+    public static final int DEFAULT_MAX_STEPS = 1_000_000;
+
+    static final int MAX_LENGTH = 4096;
+    static final int MAX_NODES = 256;
+
+    private final String source;
+    private final int maxSteps;
+    private final Condition condition;
+
+    private MatchScript(String source, int maxSteps, Condition condition) {
+        this.source = source;
+        this.maxSteps = maxSteps;
+        this.condition = condition;
+    }
+
+    public static MatchScript compile(String source) {
+        return compile(source, DEFAULT_MAX_STEPS);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the script is too long, too complex or not valid
+     */
+    public static MatchScript compile(String source, int maxSteps) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Script is empty");
+        }
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Script is longer than " + MAX_LENGTH + " characters");
+        }
+        return new MatchScript(source, maxSteps, new Parser(source).parse());
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /** Evaluates the script; {@code headers} and {@code queryParams} may be {@code null}. */
+    public boolean test(String method, String path, Map<String, String> headers,
+                        Map<String, String> queryParams, RequestBody body) {
+        Evaluation evaluation = new Evaluation(method, path, headers, queryParams, body, maxSteps);
+        try {
+            return condition.test(evaluation);
+        } catch (BudgetExceededException e) {
+            LOG.warnf("matchScript exceeded its budget of %d steps and does not match: %s", maxSteps, source);
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private interface Condition {
+        boolean test(Evaluation e);
+    }
+
+    private interface Operand {
+        String eval(Evaluation e);
+    }
+
+    private static final class BudgetExceededException extends RuntimeException {
+        BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Per-evaluation state: the request and the remaining budget. */
+    private static final class Evaluation {
+        final String method;
+        final String path;
+        final Map<String, String> headers;
+        final Map<String, String> queryParams;
+        final RequestBody body;
+        private int remaining;
+
+        Evaluation(String method, String path, Map<String, String> headers,
+                   Map<String, String> queryParams, RequestBody body, int maxSteps) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.queryParams = queryParams;
+            this.body = body;
+            this.remaining = maxSteps;
+        }
+
+        void tick() {
+            if (--remaining < 0) {
+                throw new BudgetExceededException();
+            }
+        }
+    }
+
+    /** Charges one step per character read, which bounds regex backtracking. */
+    private record BudgetedChars(CharSequence text, Evaluation evaluation) implements CharSequence {
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            evaluation.tick();
+            return text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new BudgetedChars(text.subSequence(start, end), evaluation);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private enum TokenType { IDENT, STRING, NUMBER, OPERATOR, END }
+
+    private record Token(TokenType type, String text, int position) {}
+
+    private static final class Parser {
+
+        private final String source;
+        private final List<Token> tokens;
+        private int index;
+        private int nodes;
+
+        Parser(String source) {
+            this.source = source;
+            this.tokens = tokenize(source);
+        }
+
+        Condition parse() {
+            Condition condition = parseOr();
+            if (peek().type() != TokenType.END) {
+                throw error("Unexpected '" + peek().text() + "'", peek());
+            }
+            return condition;
+        }
+
+        private Condition parseOr() {
+            Condition left = parseAnd();
+            while (acceptOperator("||")) {
+                Condition l = left;
+                Condition r = parseAnd();
+                left = node(e -> l.test(e) || r.test(e));
+            }
+            return left;
+        }
+
+        private Condition parseAnd() {
+            Condition left = parseUnary();
+            while (acceptOperator("&&")) {
+                Condition l = left;
+                Condition r = parseUnary();
+                left = node(e -> l.test(e) && r.test(e));
+            }
+            return left;
+        }
+
+        private Condition parseUnary() {
+            if (acceptOperator("!")) {
+                Condition inner = parseUnary();
+                return node(e -> !inner.test(e));
+            }
+            if (acceptOperator("(")) {
+                Condition inner = parseOr();
+                expectOperator(")");
+                return inner;
+            }
+            if (acceptIdent("true")) {
+                return node(e -> true);
+            }
+            if (acceptIdent("false")) {
+                return node(e -> false);
+            }
+            return parseComparison();
+        }
+
+        private Condition parseComparison() {
+            Operand left = parseOperand();
+            boolean leftNumber = tokens.get(index - 1).type() == TokenType.NUMBER;
+            Token op = peek();
+
+            if (acceptOperator("=~")) {
+                Token literal = next();
+                if (literal.type() != TokenType.STRING) {
+                    throw error("=~ expects a string literal", literal);
+                }
+                Pattern pattern;
+                try {
+                    pattern = Pattern.compile(literal.text());
+                } catch (PatternSyntaxException e) {
+                    throw error("Invalid regular expression: " + e.getDescription(), literal);
+                }
+                return node(e -> {
+                    String value = left.eval(e);
+                    return value != null && pattern.matcher(new BudgetedChars(value, e)).find();
+                });
+            }
+            if (op.type() == TokenType.IDENT && (op.text().equals("contains")
+                    || op.text().equals("startsWith") || op.text().equals("endsWith"))) {
+                index++;
+                Operand right = parseOperand();
+                return switch (op.text()) {
+                    case "contains" -> binary(left, right, String::contains);
+                    case "startsWith" -> binary(left, right, String::startsWith);
+                    default -> binary(left, right, String::endsWith);
+                };
+            }
+            if (op.type() == TokenType.OPERATOR && List.of("==", "!=", "<", "<=", ">", ">=").contains(op.text())) {
+                index++;
+                Operand right = parseOperand();
+                boolean numeric = leftNumber || tokens.get(index - 1).type() == TokenType.NUMBER;
+                return switch (op.text()) {
+                    case "==" -> numeric ? numeric(left, right, c -> c == 0) : equality(left, right, true);
+                    case "!=" -> numeric ? negate(numeric(left, right, c -> c == 0)) : equality(left, right, false);
+                    case "<" -> numeric(left, right, c -> c < 0);
+                    case "<=" -> numeric(left, right, c -> c <= 0);
+                    case ">" -> numeric(left, right, c -> c > 0);
+                    default -> numeric(left, right, c -> c >= 0);
+                };
+            }
+            return node(e -> left.eval(e) != null);
+        }
+
+        private Condition equality(Operand left, Operand right, boolean expected) {
+            return node(e -> {
+                String l = left.eval(e);
+                String r = right.eval(e);
+                return (l == null ? r == null : l.equals(r)) == expected;
+            });
+        }
+
+        private Condition binary(Operand left, Operand right, BiPredicate<String, String> test) {
+            return node(e -> {
+                String l = left.eval(e);
+                String r = right.eval(e);
+                return l != null && r != null && test.test(l, r);
+            });
+        }
+
+        private Condition numeric(Operand left, Operand right, IntPredicate comparison) {
+            return node(e -> {
+                Double l = toNumber(left.eval(e));
+                Double r = toNumber(right.eval(e));
+                return l != null && r != null && comparison.test(Double.compare(l, r));
+            });
+        }
+
+        private Condition negate(Condition condition) {
+            return node(e -> !condition.test(e));
+        }
+
+        private Operand parseOperand() {
+            Token token = next();
+            switch (token.type()) {
+                case STRING, NUMBER -> {
+                    String value = token.text();
+                    return operand(e -> value);
+                }
+                case IDENT -> {
+                    return switch (token.text()) {
+                        case "null" -> operand(e -> null);
+                        case "method" -> operand(e -> e.method);
+                        case "path" -> operand(e -> e.path);
+                        case "body" -> operand(e -> e.body.text());
+                        case "headers" -> header(parseSelector());
+                        case "query" -> {
+                            String name = parseSelector();
+                            yield operand(e -> e.queryParams != null ? e.queryParams.get(name) : null);
+                        }
+                        case "json" -> {
+                            JsonPointer pointer = parseJsonPointer();
+                            yield operand(e -> e.body.jsonText(pointer));
+                        }
+                        default -> throw error("Unknown identifier '" + token.text() + "'", token);
+                    };
+                }
+                default -> throw error("Expected a value but found '" + token.text() + "'", token);
+            }
+        }
+
+        /** HTTP header names arrive lower-cased; AMQP properties keep their case. Try both. */
+        private Operand header(String name) {
+            String lower = name.toLowerCase();
+            return operand(e -> {
+                if (e.headers == null) {
+                    return null;
+                }
+                String value = e.headers.get(name);
+                return value != null || lower.equals(name) ? value : e.headers.get(lower);
+            });
+        }
+
+        private String parseSelector() {
+            if (acceptOperator(".")) {
+                Token name = next();
+                if (name.type() != TokenType.IDENT) {
+                    throw error("Expected a name after '.'", name);
+                }
+                return name.text();
+            }
+            if (acceptOperator("[")) {
+                Token name = next();
+                if (name.type() != TokenType.STRING) {
+                    throw error("Expected a quoted name inside [ ]", name);
+                }
+                expectOperator("]");
+                return name.text();
+            }
+            throw error("Expected .name or ['name']", peek());
+        }
+
+        private JsonPointer parseJsonPointer() {
+            StringBuilder pointer = new StringBuilder();
+            while (true) {
+                if (acceptOperator(".")) {
+                    Token name = next();
+                    if (name.type() != TokenType.IDENT) {
+                        throw error("Expected a name after '.'", name);
+                    }
+                    appendStep(pointer, name.text());
+                } else if (acceptOperator("[")) {
+                    Token step = next();
+                    if (step.type() == TokenType.STRING) {
+                        appendStep(pointer, step.text());
+                    } else if (step.type() == TokenType.NUMBER && step.text().chars().allMatch(Character::isDigit)) {
+                        pointer.append('/').append(step.text());
+                    } else {
+                        throw error("Expected an array index or quoted name inside [ ]", step);
+                    }
+                    expectOperator("]");
+                } else {
+                    return JsonPointer.compile(pointer.toString());
+                }
+            }
+        }
+
+        private static void appendStep(StringBuilder pointer, String name) {
+            pointer.append('/').append(name.replace("~", "~0").replace("/", "~1"));
+        }
+
+        private Condition node(Condition condition) {
+            count();
+            return e -> {
+                e.tick();
+                return condition.test(e);
+            };
+        }
+
+        private Operand operand(Operand operand) {
+            count();
+            return e -> {
+                e.tick();
+                return operand.eval(e);
+            };
+        }
+
+        private void count() {
+            if (++nodes > MAX_NODES) {
+                throw new IllegalArgumentException("Script is too complex (more than " + MAX_NODES + " nodes)");
+            }
+        }
+
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        private Token next() {
+            Token token = tokens.get(index);
+            if (token.type() != TokenType.END) {
+                index++;
+            }
+            return token;
+        }
+
+        private boolean acceptOperator(String op) {
+            if (peek().type() == TokenType.OPERATOR && peek().text().equals(op)) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptIdent(String ident) {
+            if (peek().type() == TokenType.IDENT && peek().text().equals(ident)) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectOperator(String op) {
+            if (!acceptOperator(op)) {
+                throw error("Expected '" + op + "'", peek());
+            }
+        }
+
+        private IllegalArgumentException error(String message, Token token) {
+            return new IllegalArgumentException(message + " at index " + token.position() + " of '" + source + "'");
+        }
+
+        private static Double toNumber(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static List<Token> tokenize(String source) {
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (Character.isLetter(c) || c == '_') {
+                    int end = i + 1;
+                    while (end < source.length()
+                            && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_')) {
+                        end++;
+                    }
+                    tokens.add(new Token(TokenType.IDENT, source.substring(i, end), i));
+                    i = end;
+                } else if (Character.isDigit(c) || (c == '-' && i + 1 < source.length()
+                        && Character.isDigit(source.charAt(i + 1)))) {
+                    int end = i + 1;
+                    while (end < source.length()
+                            && (Character.isDigit(source.charAt(end)) || source.charAt(end) == '.')) {
+                        end++;
+                    }
+                    String number = source.substring(i, end);
+                    if (toNumber(number) == null) {
+                        throw new IllegalArgumentException("Invalid number '" + number + "' at index " + i
+                                + " of '" + source + "'");
+                    }
+                    tokens.add(new Token(TokenType.NUMBER, number, i));
+                    i = end;
+                } else if (c == '\'' || c == '"') {
+                    StringBuilder text = new StringBuilder();
+                    int end = i + 1;
+                    while (end < source.length() && source.charAt(end) != c) {
+                        if (source.charAt(end) == '\\' && end + 1 < source.length()) {
+                            end++;
+                        }
+                        text.append(source.charAt(end++));
+                    }
+                    if (end >= source.length()) {
+                        throw new IllegalArgumentException("Unterminated string at index " + i + " of '" + source + "'");
+                    }
+                    tokens.add(new Token(TokenType.STRING, text.toString(), i));
+                    i = end + 1;
+                } else {
+                    String op = source.startsWith("&&", i) || source.startsWith("||", i)
+                            || source.startsWith("==", i) || source.startsWith("!=", i)
+                            || source.startsWith("<=", i) || source.startsWith(">=", i)
+                            || source.startsWith("=~", i)
+                            ? source.substring(i, i + 2)
+                            : "<>!().[]".indexOf(c) >= 0 ? String.valueOf(c) : null;
+                    if (op == null) {
+                        throw new IllegalArgumentException("Unexpected character '" + c + "' at index " + i
+                                + " of '" + source + "'");
+                    }
+                    tokens.add(new Token(TokenType.OPERATOR, op, i));
+                    i += op.length();
+                }
+            }
+            tokens.add(new Token(TokenType.END, "end of script", source.length()));
+            return tokens;
+        }
+    }
+}
@@ -1,40 +1,69 @@
 package nl.blockmock.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import nl.blockmock.domain.*;
 
 import java.util.List;
 import java.util.Optional;
 
-/** CRUD and lifecycle management for mock endpoints and their responses. */
+/**
+ * CRUD and lifecycle management for mock endpoints and their responses.
+ * Every state change invalidates the {@link MockRouteTable} so mock traffic sees it after commit.
+ * Regular expressions in paths and body criteria are validated on save; invalid ones are rejected
+ * with an {@link IllegalArgumentException}, as is a sampled capture level without a valid percentage.
+ */
 @ApplicationScoped
 public class MockEndpointService {
 
+    @Inject
+    MockRouteTable mockRouteTable;
+
+    @Inject
+    EndpointCounters endpointCounters;
+
+    @Inject
+    EndpointLatency endpointLatency;
+
+    @Inject
+    MockMetrics mockMetrics;
+
     @Transactional
     public MockEndpoint create(MockEndpoint endpoint) {
+        MockPatterns.validate(endpoint);
+        RequestCapture.validate(endpoint);
         if (endpoint.getResponses() != null) {
             for (MockResponse response : endpoint.getResponses()) {
                 response.setMockEndpoint(endpoint);
             }
         }
         endpoint.persist();
+        mockRouteTable.invalidate();
         return endpoint;
     }
 
     @Transactional
     public MockEndpoint update(MockEndpoint endpoint) {
+        MockPatterns.validate(endpoint);
+        RequestCapture.validate(endpoint);
         if (endpoint.getResponses() != null) {
             for (MockResponse response : endpoint.getResponses()) {
                 response.setMockEndpoint(endpoint);
             }
         }
-        return MockEndpoint.getEntityManager().merge(endpoint);
+        MockEndpoint merged = MockEndpoint.getEntityManager().merge(endpoint);
+        mockRouteTable.invalidate();
+        return merged;
     }
 
     @Transactional
     public void delete(Long id) {
         MockEndpoint.deleteById(id);
+        mockRouteTable.invalidate();
+        endpointCounters.forget(id);
+        endpointLatency.forget(id);
+        mockMetrics.forget(id);
     }
 
     public Optional<MockEndpoint> findById(Long id) {
@@ -59,6 +88,7 @@ public class MockEndpointService {
         if (endpoint != null) {
             endpoint.setEnabled(!endpoint.getEnabled());
             endpoint.persist();
+            mockRouteTable.invalidate();
         }
         return endpoint;
     }
@@ -69,6 +99,7 @@ public class MockEndpointService {
         if (endpoint != null) {
             endpoint.setEnabled(enabled);
             endpoint.persist();
+            mockRouteTable.invalidate();
         }
         return endpoint;
     }
@@ -79,13 +110,16 @@ public class MockEndpointService {
         if (endpoint == null) {
             throw new IllegalArgumentException("MockEndpoint not found with id: " + endpointId);
         }
+        MockPatterns.validate(response);
         endpoint.addResponse(response);
         response.persist();
+        mockRouteTable.invalidate();
         return response;
     }
 
     @Transactional
     public void deleteResponse(Long responseId) {
         MockResponse.deleteById(responseId);
+        mockRouteTable.invalidate();
     }
 }
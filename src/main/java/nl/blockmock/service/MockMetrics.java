@@ -0,0 +1,216 @@
+package nl.blockmock.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import nl.blockmock.domain.MockEndpoint;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.ProtocolType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus metrics of mock traffic, served with the rest of the registry at {@code /q/metrics}:
+ * requests per endpoint and outcome, response selections, configured delays, AMQP consumer lag and
+ * trigger fire latency. Internals of the request log writer are registered by
+ * {@link RequestLogWriter} itself.
+ * <p>
+ * Traffic is tagged with {@code protocol}, {@code endpoint} and {@code block} names (and
+ * {@code response} names for selections), never with request paths or patterns, so the number of
+ * series follows the configuration rather than the traffic. Unmatched requests are tagged
+ * {@value #NONE}. As a safeguard, at most {@code max-endpoints} endpoint names and
+ * {@code max-responses} response names are exported; further ones are not recorded.
+ * <p>
+ * Meters are looked up once per endpoint and response id and cached; an endpoint that is renamed
+ * or moved to another block gets new meters on its next request.
+ */
+@ApplicationScoped
+public class MockMetrics {
+
+    static final String PREFIX = "blockmock.";
+    static final String NONE = "none";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<Long, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+    private final Map<ProtocolType, Counter> unmatched = new ConcurrentHashMap<>();
+
+    @Produces
+    @Singleton
+    static MeterFilter endpointLimit(
+            @ConfigProperty(name = "blockmock.metrics.max-endpoints", defaultValue = "500") int maxEndpoints) {
+        return MeterFilter.maximumAllowableTags(PREFIX, "endpoint", maxEndpoints, MeterFilter.deny());
+    }
+
+    @Produces
+    @Singleton
+    static MeterFilter responseLimit(
+            @ConfigProperty(name = "blockmock.metrics.max-responses", defaultValue = "2000") int maxResponses) {
+        return MeterFilter.maximumAllowableTags(PREFIX, "response", maxResponses, MeterFilter.deny());
+    }
+
+    /**
+     * Counts a request matched to {@code endpoint} and the selection of {@code response}, if any.
+     * {@code delayMs} is the delay applied before answering, or {@code null} if the protocol has none.
+     */
+    public void matched(MockEndpoint endpoint, String block, MockResponse response, Integer delayMs) {
+        EndpointMeters meters = endpointMeters(endpoint, block);
+        meters.requests.increment();
+        if (response == null) {
+            return;
+        }
+        ResponseMeters selected = meters.responseMeters(response);
+        selected.selected.increment();
+        if (delayMs != null) {
+            selected.delay().record(delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Counts a request no endpoint matched. */
+    public void unmatched(ProtocolType protocol) {
+        unmatched.computeIfAbsent(protocol, p -> Counter.builder(PREFIX + "mock.requests")
+                .description("Mock requests received")
+                .tags("protocol", p.name(), "endpoint", NONE, "block", NONE, "outcome", "unmatched")
+                .register(registry)).increment();
+    }
+
+    /**
+     * Records how long an AMQP message waited before processing started: since its
+     * {@code creation-time} if the sender set one ({@code creationTimeMillis > 0}), and since it
+     * was received ({@code receivedNanos} from {@link System#nanoTime()}).
+     */
+    public void consumerLag(MockEndpoint endpoint, String block, long creationTimeMillis, long receivedNanos) {
+        EndpointMeters meters = endpointMeters(endpoint, block);
+        if (creationTimeMillis > 0) {
+            meters.lag().record(Math.max(0, System.currentTimeMillis() - creationTimeMillis), TimeUnit.MILLISECONDS);
+        }
+        meters.dispatch().record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Records the outbound call or publish of a fired trigger. */
+    public void triggerFired(ProtocolType protocol, boolean succeeded, long nanos) {
+        Timer.builder(PREFIX + "trigger.fire")
+                .description("Time taken by the outbound call or publish of fired triggers")
+                .tags("protocol", protocol.name(), "outcome", succeeded ? "success" : "failure")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Drops the cached meters of a deleted endpoint; its series stay until restart. */
+    public void forget(Long endpointId) {
+        endpoints.remove(endpointId);
+    }
+
+    private EndpointMeters endpointMeters(MockEndpoint endpoint, String block) {
+        String name = tagValue(endpoint.getName(), endpoint.id);
+        String blockTag = block != null ? block : NONE;
+        EndpointMeters meters = endpoints.get(endpoint.id);
+        if (meters == null || !meters.name.equals(name) || !meters.block.equals(blockTag)) {
+            meters = new EndpointMeters(endpoint.getProtocol(), name, blockTag);
+            endpoints.put(endpoint.id, meters);
+        }
+        return meters;
+    }
+
+    /** The name, or the id for unnamed entities, so that tags are never empty. */
+    private static String tagValue(String name, Long id) {
+        return name != null && !name.isBlank() ? name : "#" + id;
+    }
+
+    /**
+     * Meters of one endpoint under its current name and block. Lazily created meters may be
+     * registered twice concurrently; the registry returns the same instance for both.
+     */
+    private final class EndpointMeters {
+        final String name;
+        final String block;
+        final String[] tags;
+        final Counter requests;
+        final Map<Long, ResponseMeters> responses = new ConcurrentHashMap<>();
+        private volatile Timer lag;
+        private volatile Timer dispatch;
+
+        EndpointMeters(ProtocolType protocol, String name, String block) {
+            this.name = name;
+            this.block = block;
+            this.tags = new String[]{"protocol", protocol != null ? protocol.name() : NONE, "endpoint", name, "block", block};
+            this.requests = Counter.builder(PREFIX + "mock.requests")
+                    .description("Mock requests received")
+                    .tags(tags)
+                    .tag("outcome", "matched")
+                    .register(registry);
+        }
+
+        ResponseMeters responseMeters(MockResponse response) {
+            String responseName = tagValue(response.getName(), response.id);
+            ResponseMeters meters = responses.get(response.id);
+            if (meters == null || !meters.name.equals(responseName)) {
+                meters = new ResponseMeters(this, responseName);
+                responses.put(response.id, meters);
+            }
+            return meters;
+        }
+
+        Timer lag() {
+            Timer timer = lag;
+            if (timer == null) {
+                lag = timer = Timer.builder(PREFIX + "amqp.consumer.lag")
+                        .description("Time from a message's creation-time until processing started")
+                        .tags(tags)
+                        .register(registry);
+            }
+            return timer;
+        }
+
+        Timer dispatch() {
+            Timer timer = dispatch;
+            if (timer == null) {
+                dispatch = timer = Timer.builder(PREFIX + "amqp.consumer.dispatch")
+                        .description("Time from receiving a message until processing started")
+                        .tags(tags)
+                        .register(registry);
+            }
+            return timer;
+        }
+    }
+
+    /** Meters of one response of an endpoint under its current name. */
+    private final class ResponseMeters {
+        final String name;
+        final String[] tags;
+        final Counter selected;
+        private volatile Timer delay;
+
+        ResponseMeters(EndpointMeters endpoint, String name) {
+            this.name = name;
+            this.tags = new String[endpoint.tags.length + 2];
+            System.arraycopy(endpoint.tags, 0, tags, 0, endpoint.tags.length);
+            tags[tags.length - 2] = "response";
+            tags[tags.length - 1] = name;
+            this.selected = Counter.builder(PREFIX + "mock.responses")
+                    .description("Times a response was selected")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        Timer delay() {
+            Timer timer = delay;
+            if (timer == null) {
+                delay = timer = Timer.builder(PREFIX + "mock.response.delay")
+                        .description("Configured delay applied before responding")
+                        .tags(tags)
+                        .register(registry);
+            }
+            return timer;
+        }
+    }
+}
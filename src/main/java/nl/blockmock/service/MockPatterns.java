@@ -0,0 +1,169 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.MockEndpoint;
+import nl.blockmock.domain.MockResponse;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Patterns used by mock matching: regex endpoint paths ({@code httpPathRegex=true}),
+ * {@code /pattern/} body criteria and the paths in {@code matchJson} and {@code matchXml}. Patterns
+ * are validated when an endpoint or response is saved and compiled once per route table snapshot,
+ * never per request.
+ */
+final class MockPatterns {
+
+    private MockPatterns() {
+    }
+
+    /** Returns true if {@code matchBody} uses the {@code /pattern/} regex form. */
+    static boolean isBodyRegex(String matchBody) {
+        return matchBody != null && matchBody.length() > 2
+                && matchBody.startsWith("/") && matchBody.endsWith("/");
+    }
+
+    /** Strips the surrounding slashes of a {@code /pattern/} body criterion. */
+    static String bodyRegex(String matchBody) {
+        return matchBody.substring(1, matchBody.length() - 1);
+    }
+
+    /**
+     * Returns the literal text every string matched by {@code regex} (with {@link java.util.regex.Matcher#matches()})
+     * must start with. The analysis is conservative: it stops at the first metacharacter, drops a
+     * literal that is followed by a quantifier, skips a leading {@code ^}, and gives up entirely
+     * (empty prefix) when the pattern contains an alternation.
+     */
+    static String literalPrefix(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        int start = regex.startsWith("^") ? 1 : 0;
+        int end = start;
+        while (end < regex.length() && "\\[](){}.*+?^$|".indexOf(regex.charAt(end)) < 0) {
+            end++;
+        }
+        if (end < regex.length() && end > start && "*+?{".indexOf(regex.charAt(end)) >= 0) {
+            end--;
+        }
+        return regex.substring(start, end);
+    }
+
+    /**
+     * Compiles a {@code matchJson} key into a {@link JsonPointer}. Accepts a JSON Pointer
+     * ({@code /order/items/0/sku}) or the simple JSONPath subset of member and index steps
+     * ({@code $.order.items[0].sku}, {@code $['order']}). Wildcards, filters and recursive
+     * descent are not supported.
+     *
+     * @throws IllegalArgumentException if the path is not in either form
+     */
+    static JsonPointer jsonPointer(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("JSON path must not be null");
+        }
+        if (!path.startsWith("$")) {
+            return JsonPointer.compile(path);
+        }
+        StringBuilder pointer = new StringBuilder();
+        int i = 1;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.' && i + 1 < path.length() && path.charAt(i + 1) != '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                appendStep(pointer, path.substring(i + 1, end), path);
+                i = end;
+            } else if (c == '[' && path.indexOf(']', i) > i + 1) {
+                int end = path.indexOf(']', i);
+                String step = path.substring(i + 1, end);
+                if (step.length() >= 2 && (step.charAt(0) == '\'' || step.charAt(0) == '"')
+                        && step.charAt(step.length() - 1) == step.charAt(0)) {
+                    appendStep(pointer, step.substring(1, step.length() - 1), path);
+                } else if (step.chars().allMatch(Character::isDigit)) {
+                    pointer.append('/').append(step);
+                } else {
+                    throw new IllegalArgumentException("Unsupported JSON path step '[" + step + "]' in '" + path + "'");
+                }
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unsupported JSON path syntax at index " + i + " of '" + path + "'");
+            }
+        }
+        return JsonPointer.compile(pointer.toString());
+    }
+
+    private static void appendStep(StringBuilder pointer, String name, String path) {
+        if (name.isEmpty() || name.equals("*")) {
+            throw new IllegalArgumentException("Unsupported JSON path step '" + name + "' in '" + path + "'");
+        }
+        pointer.append('/').append(name.replace("~", "~0").replace("/", "~1"));
+    }
+
+    /**
+     * Rejects an endpoint (and its responses) whose regular expressions do not compile.
+     *
+     * @throws IllegalArgumentException describing the first invalid pattern
+     */
+    static void validate(MockEndpoint endpoint) {
+        if (endpoint instanceof HttpMockEndpoint http
+                && Boolean.TRUE.equals(http.getHttpPathRegex()) && http.getHttpPath() != null) {
+            checkSyntax(http.getHttpPath(), "httpPath");
+        }
+        if (endpoint.getResponses() != null) {
+            for (MockResponse response : endpoint.getResponses()) {
+                validate(response);
+            }
+        }
+    }
+
+    /**
+     * Rejects a response whose {@code /pattern/} body criterion, {@code matchJson} or {@code matchXml}
+     * paths, or {@code matchScript} do not compile.
+     *
+     * @throws IllegalArgumentException describing the invalid pattern
+     */
+    static void validate(MockResponse response) {
+        if (isBodyRegex(response.getMatchBody())) {
+            checkSyntax(bodyRegex(response.getMatchBody()), "matchBody of response '" + response.getName() + "'");
+        }
+        if (response.getMatchJson() != null) {
+            for (String path : response.getMatchJson().keySet()) {
+                try {
+                    jsonPointer(path);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid JSON path in matchJson of response '"
+                            + response.getName() + "': " + e.getMessage());
+                }
+            }
+        }
+        if (response.getMatchXml() != null) {
+            try {
+                XmlMatcher.compile(response.getMatchXml());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid matchXml of response '"
+                        + response.getName() + "': " + e.getMessage());
+            }
+        }
+        if (response.getMatchScript() != null && !response.getMatchScript().isBlank()) {
+            try {
+                MatchScript.compile(response.getMatchScript());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid matchScript of response '"
+                        + response.getName() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    private static void checkSyntax(String regex, String field) {
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regular expression in " + field + ": " + e.getDescription()
+                    + " near index " + e.getIndex() + " of '" + regex + "'");
+        }
+    }
+}
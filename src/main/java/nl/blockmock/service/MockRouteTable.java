@@ -0,0 +1,292 @@
+package nl.blockmock.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import nl.blockmock.domain.AmqpMockEndpoint;
+import nl.blockmock.domain.Block;
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable in-memory snapshot of all enabled HTTP and AMQP endpoints and their responses, used by
+ * {@link HttpMockService} and {@link AmqpMockService} so that matching never queries the database.
+ * Every endpoint carries a precomputed {@link ResponsePlan}.
+ * <p>
+ * Services that change endpoint state call {@link #invalidate()}. Inside a transaction the
+ * rebuild is deferred until after a successful commit (at most once per transaction); the new
+ * snapshot is then loaded in its own transaction and swapped in atomically.
+ * <p>
+ * Regex paths, {@code /pattern/} body criteria and {@link MatchScript match scripts} are compiled
+ * while loading. Compiled patterns and scripts are reused across rebuilds, keyed by their source
+ * text, so a rebuild only compiles what changed.
+ * <p>
+ * Every response also gets its {@link ResponseSnapshot}, which is stored in
+ * {@code response_snapshot} when first seen; request logs reference it by hash. Snapshots are
+ * reused while a response's {@code updatedAt} is unchanged.
+ */
+@ApplicationScoped
+public class MockRouteTable {
+
+    private static final Logger LOG = Logger.getLogger(MockRouteTable.class);
+
+    private static final String REBUILD_PENDING = MockRouteTable.class.getName() + ".rebuildPending";
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @ConfigProperty(name = "blockmock.match-script.max-steps", defaultValue = "1000000")
+    int matchScriptMaxSteps;
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of(), Map.of(), Map.of(), Map.of());
+
+    // Only accessed from rebuild(), which is synchronized
+    private Map<String, Pattern> compiledPatterns = Map.of();
+    private Map<String, MatchScript> compiledScripts = Map.of();
+    private Map<Long, StoredSnapshot> storedSnapshots = Map.of();
+
+    private record StoredSnapshot(LocalDateTime updatedAt, ResponseSnapshot snapshot) {}
+
+    void onStart(@Observes StartupEvent event) {
+        rebuild();
+    }
+
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Schedules a rebuild of the snapshot. Without an active transaction the rebuild happens
+     * immediately; otherwise it runs after the surrounding transaction commits, so that the
+     * snapshot reflects committed state only. Rolled-back transactions leave the snapshot untouched.
+     */
+    public void invalidate() {
+        if (txRegistry.getTransactionKey() == null) {
+            rebuild();
+            return;
+        }
+        if (txRegistry.getResource(REBUILD_PENDING) != null) {
+            return;
+        }
+        txRegistry.putResource(REBUILD_PENDING, Boolean.TRUE);
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    rebuild();
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads all enabled endpoints with their responses and forced response in a fresh
+     * transaction and swaps the snapshot. Synchronized so that a slower, older rebuild can never
+     * overwrite a newer one. On failure the previous snapshot stays in place.
+     */
+    public synchronized void rebuild() {
+        try {
+            snapshot = QuarkusTransaction.requiringNew().call(this::load);
+            LOG.debugf("Route table rebuilt: %d enabled HTTP endpoints, %d AMQP addresses",
+                    snapshot.routes().size(), snapshot.amqpRoutes().size());
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to rebuild route table, keeping previous snapshot");
+        }
+    }
+
+    private Snapshot load() {
+        List<HttpMockEndpoint> endpoints = HttpMockEndpoint.find(
+                "select distinct e from HttpMockEndpoint e "
+                        + "left join fetch e.responses "
+                        + "left join fetch e.forcedResponse "
+                        + "where e.protocol = ?1 and e.enabled = true order by e.id",
+                ProtocolType.HTTP).list();
+
+        Map<String, Pattern> patterns = new HashMap<>();
+        Map<String, MatchScript> scripts = new HashMap<>();
+        List<HttpRoute> routes = new ArrayList<>(endpoints.size());
+        for (HttpMockEndpoint endpoint : endpoints) {
+            Pattern pathPattern = Boolean.TRUE.equals(endpoint.getHttpPathRegex()) && endpoint.getHttpPath() != null
+                    ? compile(endpoint.getHttpPath(), patterns, endpoint.getName())
+                    : null;
+            ResponsePlan plan = ResponsePlan.http(endpoint.getResponses(),
+                    regex -> compile(regex, patterns, endpoint.getName()),
+                    script -> compileScript(script, scripts, endpoint.getName()));
+
+            routes.add(new HttpRoute(routes.size(), endpoint, pathPattern, endpoint.getForcedResponse(), plan));
+        }
+
+        List<AmqpMockEndpoint> amqpEndpoints = AmqpMockEndpoint.find(
+                "select distinct e from AmqpMockEndpoint e "
+                        + "left join fetch e.responses "
+                        + "left join fetch e.forcedResponse "
+                        + "where e.enabled = true order by e.id").list();
+
+        // First enabled endpoint per address wins, as the former per-message query did
+        Map<String, AmqpRoute> amqpRoutes = new HashMap<>();
+        for (AmqpMockEndpoint endpoint : amqpEndpoints) {
+            if (endpoint.getAmqpAddress() != null) {
+                amqpRoutes.putIfAbsent(endpoint.getAmqpAddress(), new AmqpRoute(endpoint,
+                        endpoint.getForcedResponse(), ResponsePlan.amqp(endpoint.getResponses(),
+                                script -> compileScript(script, scripts, endpoint.getName()))));
+            }
+        }
+        Map<Long, StoredSnapshot> stored = new HashMap<>();
+        for (HttpMockEndpoint endpoint : endpoints) {
+            storeSnapshots(endpoint.getResponses(), endpoint.getForcedResponse(), stored);
+        }
+        for (AmqpMockEndpoint endpoint : amqpEndpoints) {
+            storeSnapshots(endpoint.getResponses(), endpoint.getForcedResponse(), stored);
+        }
+        Map<Long, ResponseSnapshot> responseSnapshots = new HashMap<>();
+        stored.forEach((id, s) -> responseSnapshots.put(id, s.snapshot()));
+
+        compiledPatterns = patterns;
+        compiledScripts = scripts;
+        storedSnapshots = stored;
+        return Snapshot.of(routes, amqpRoutes, responseSnapshots, loadBlocks());
+    }
+
+    /** Block names per endpoint id; an endpoint in several blocks gets their names joined by commas. */
+    private Map<Long, String> loadBlocks() {
+        List<Object[]> rows = Block.getEntityManager()
+                .createQuery("select e.id, b.name from Block b join b.endpoints e order by b.name", Object[].class)
+                .getResultList();
+        Map<Long, String> blocks = new HashMap<>();
+        for (Object[] row : rows) {
+            blocks.merge((Long) row[0], (String) row[1], (first, second) -> first + "," + second);
+        }
+        return blocks;
+    }
+
+    private void storeSnapshots(Collection<MockResponse> responses, MockResponse forced,
+                                Map<Long, StoredSnapshot> stored) {
+        if (responses != null) {
+            for (MockResponse response : responses) {
+                storeSnapshot(response, stored);
+            }
+        }
+        if (forced != null) {
+            storeSnapshot(forced, stored);
+        }
+    }
+
+    /** Computes and inserts the snapshot of {@code response} unless it is unchanged since the last load. */
+    private void storeSnapshot(MockResponse response, Map<Long, StoredSnapshot> stored) {
+        if (stored.containsKey(response.id)) {
+            return;
+        }
+        StoredSnapshot previous = storedSnapshots.get(response.id);
+        if (previous != null && previous.updatedAt() != null && previous.updatedAt().equals(response.getUpdatedAt())) {
+            stored.put(response.id, previous);
+            return;
+        }
+        ResponseSnapshot snapshot = ResponseSnapshot.of(response);
+        RequestLog.getEntityManager().createNativeQuery(ResponseSnapshot.UPSERT_SQL)
+                .setParameter("hash", snapshot.hash())
+                .setParameter("headers", snapshot.headersJson())
+                .setParameter("body", snapshot.body())
+                .executeUpdate();
+        stored.put(response.id, new StoredSnapshot(response.getUpdatedAt(), snapshot));
+    }
+
+    /**
+     * Returns the compiled pattern for {@code regex}, reusing the one from the previous snapshot
+     * when available. Patterns saved before validation existed may not compile; those are logged
+     * and yield {@code null} instead of failing the whole rebuild.
+     */
+    private Pattern compile(String regex, Map<String, Pattern> patterns, String endpointName) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = compiledPatterns.get(regex);
+        }
+        if (pattern == null) {
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                LOG.warnf("Ignoring invalid regular expression '%s' on endpoint '%s': %s",
+                        regex, endpointName, e.getDescription());
+                return null;
+            }
+        }
+        patterns.put(regex, pattern);
+        return pattern;
+    }
+
+    /** Like {@link #compile}, for {@code matchScript} criteria. */
+    private MatchScript compileScript(String source, Map<String, MatchScript> scripts, String endpointName) {
+        MatchScript script = scripts.get(source);
+        if (script == null) {
+            script = compiledScripts.get(source);
+        }
+        if (script == null) {
+            try {
+                script = MatchScript.compile(source, matchScriptMaxSteps);
+            } catch (IllegalArgumentException e) {
+                LOG.warnf("Ignoring invalid matchScript on endpoint '%s': %s", endpointName, e.getMessage());
+                return null;
+            }
+        }
+        scripts.put(source, script);
+        return script;
+    }
+
+    /**
+     * Point-in-time view of the enabled endpoints: HTTP routes in stable (id) order with a router
+     * over them, AMQP routes keyed by address, the stored snapshot of every response by id, and
+     * the block names of every endpoint in a block by endpoint id.
+     */
+    public record Snapshot(List<HttpRoute> routes, HttpRouter router, Map<String, AmqpRoute> amqpRoutes,
+                           Map<Long, ResponseSnapshot> responseSnapshots, Map<Long, String> blocks) {
+
+        static Snapshot of(List<HttpRoute> routes, Map<String, AmqpRoute> amqpRoutes,
+                           Map<Long, ResponseSnapshot> responseSnapshots, Map<Long, String> blocks) {
+            return new Snapshot(List.copyOf(routes), new HttpRouter(routes), Map.copyOf(amqpRoutes),
+                    Map.copyOf(responseSnapshots), Map.copyOf(blocks));
+        }
+
+        /** The block name(s) of an endpoint, or {@code null} if it is in no block. */
+        public String block(Long endpointId) {
+            return endpointId != null ? blocks.get(endpointId) : null;
+        }
+
+        /** The stored snapshot of a response from this snapshot, or {@code null}. */
+        public ResponseSnapshot responseSnapshot(MockResponse response) {
+            return response != null && response.id != null ? responseSnapshots.get(response.id) : null;
+        }
+    }
+
+    /**
+     * A detached HTTP endpoint together with its forced response and response plan.
+     * {@code order} is the position in first-match order; {@code pathPattern} is set for regex
+     * endpoints whose pattern compiles. The entities must be treated as read-only; they are
+     * shared between request threads.
+     */
+    public record HttpRoute(int order, HttpMockEndpoint endpoint, Pattern pathPattern,
+                            MockResponse forcedResponse, ResponsePlan responses) {}
+
+    /** A detached AMQP endpoint together with its forced response and response plan. Read-only. */
+    public record AmqpRoute(AmqpMockEndpoint endpoint, MockResponse forcedResponse, ResponsePlan responses) {}
+}
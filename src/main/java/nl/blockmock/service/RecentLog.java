@@ -0,0 +1,70 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Immutable view of a written request log, as kept by {@link RecentLogBuffer} and returned by the
+ * recent-traffic API. Serializes like {@link RequestLog}, plus the endpoint and response ids.
+ */
+public record RecentLog(
+        Long id,
+        Long mockEndpointId,
+        Long mockResponseId,
+        ProtocolType protocol,
+        String requestMethod,
+        String requestPath,
+        Map<String, String> requestHeaders,
+        Map<String, String> requestQueryParams,
+        String requestBody,
+        Integer responseStatusCode,
+        Map<String, String> responseHeaders,
+        String responseBody,
+        Integer responseDelayMs,
+        String amqpAddress,
+        String amqpSubject,
+        String amqpMessageId,
+        String amqpCorrelationId,
+        String amqpReplyTo,
+        Map<String, String> amqpProperties,
+        boolean matched,
+        String clientIp,
+        LocalDateTime receivedAt
+) {
+
+    public static RecentLog of(RequestLog log) {
+        return new RecentLog(
+                log.id,
+                log.getMockEndpoint() != null ? log.getMockEndpoint().id : null,
+                log.getMockResponse() != null ? log.getMockResponse().id : null,
+                log.getProtocol(),
+                log.getRequestMethod(),
+                log.getRequestPath(),
+                log.getRequestHeaders(),
+                log.getRequestQueryParams(),
+                log.getRequestBody(),
+                log.getResponseStatusCode(),
+                log.getResponseHeaders(),
+                log.getResponseBody(),
+                log.getResponseDelayMs(),
+                log.getAmqpAddress(),
+                log.getAmqpSubject(),
+                log.getAmqpMessageId(),
+                log.getAmqpCorrelationId(),
+                log.getAmqpReplyTo(),
+                log.getAmqpProperties(),
+                Boolean.TRUE.equals(log.getMatched()),
+                log.getClientIp(),
+                log.getReceivedAt());
+    }
+
+    RecentLog withId(Long id) {
+        return new RecentLog(id, mockEndpointId, mockResponseId, protocol, requestMethod, requestPath,
+                requestHeaders, requestQueryParams, requestBody, responseStatusCode, responseHeaders,
+                responseBody, responseDelayMs, amqpAddress, amqpSubject, amqpMessageId, amqpCorrelationId,
+                amqpReplyTo, amqpProperties, matched, clientIp, receivedAt);
+    }
+}
@@ -0,0 +1,77 @@
+package nl.blockmock.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-capacity, lock-free ring of the most recently written request logs. Writers claim a
+ * sequence number and publish into its slot; readers walk back from the newest sequence and skip
+ * slots that were not published yet or have been overwritten since, so neither side ever blocks.
+ * The capacity is rounded up to a power of two.
+ */
+public final class RecentLogBuffer {
+
+    private record Slot(long sequence, RecentLog log) {}
+
+    /**
+     * Newest-first matches, and the oldest entry examined: older logs are no longer in the buffer
+     * (or never were), so a caller needing more must look for them before that entry.
+     *
+     * @param exhausted whether every buffered entry was examined without reaching the limit
+     */
+    public record Window(List<RecentLog> logs, RecentLog oldestExamined, boolean exhausted) {}
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private volatile long floor;
+
+    public RecentLogBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public void add(RecentLog log) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot(sequence, log));
+    }
+
+    /** Forgets everything added so far. */
+    public void clear() {
+        floor = next.get();
+    }
+
+    /** Up to {@code limit} of the newest logs matching {@code filter}, newest first. */
+    public Window newest(int limit, Predicate<RecentLog> filter) {
+        long head = next.get();
+        long stop = Math.max(floor, head - capacity());
+        List<RecentLog> logs = new ArrayList<>(Math.min(limit, capacity()));
+        RecentLog oldest = null;
+        long sequence = head - 1;
+        for (; sequence >= stop && logs.size() < limit; sequence--) {
+            Slot slot = slots.get((int) (sequence & mask));
+            if (slot == null || slot.sequence() != sequence) {
+                continue;
+            }
+            oldest = slot.log();
+            if (filter.test(slot.log())) {
+                logs.add(slot.log());
+            }
+        }
+        return new Window(logs, oldest, sequence < stop);
+    }
+}
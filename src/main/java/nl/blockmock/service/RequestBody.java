@@ -0,0 +1,61 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * The body of one incoming mock request, shared by every candidate endpoint and response
+ * evaluated for that request. The JSON tree is parsed lazily on first use and at most once,
+ * so any number of structured (JSON) criteria cost a single parse, and requests that are only
+ * matched on text never pay for parsing. Not thread-safe; create one instance per request.
+ */
+public final class RequestBody {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String text;
+    private JsonNode json;
+
+    public RequestBody(String text) {
+        this.text = text;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /** Returns the parsed body, or a {@link MissingNode} if the body is absent or not valid JSON. */
+    public JsonNode json() {
+        if (json == null) {
+            json = parse(text);
+        }
+        return json;
+    }
+
+    /**
+     * Returns the text of the node at {@code pointer}, or {@code null} if there is none. Scalars yield
+     * their text ({@code 42}, {@code true}, {@code abc}); objects and arrays their JSON.
+     */
+    public String jsonText(JsonPointer pointer) {
+        JsonNode node = json().at(pointer);
+        if (node.isMissingNode()) {
+            return null;
+        }
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    private static JsonNode parse(String text) {
+        if (text == null || text.isBlank()) {
+            return MissingNode.getInstance();
+        }
+        try {
+            JsonNode node = MAPPER.readTree(text);
+            return node != null ? node : MissingNode.getInstance();
+        } catch (JsonProcessingException e) {
+            return MissingNode.getInstance();
+        }
+    }
+}
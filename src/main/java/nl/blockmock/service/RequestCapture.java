@@ -0,0 +1,82 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.CaptureLevel;
+import nl.blockmock.domain.MockEndpoint;
+import nl.blockmock.domain.RequestLog;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies an endpoint's {@link CaptureLevel} to a request log before it is queued. Logs without an
+ * endpoint (unmatched traffic) are always captured in full.
+ */
+final class RequestCapture {
+
+    private RequestCapture() {
+    }
+
+    /**
+     * Strips {@code log} down to what the capture level of its endpoint keeps.
+     *
+     * @return {@code false} if the log should not be written at all
+     */
+    static boolean apply(RequestLog log) {
+        MockEndpoint endpoint = log.getMockEndpoint();
+        if (endpoint == null) {
+            return true;
+        }
+        return apply(log, endpoint.getCaptureLevel(), endpoint.getCaptureSamplePercent(),
+                ThreadLocalRandom.current().nextInt(100));
+    }
+
+    /** {@code roll} is uniform in [0, 100) and decides sampling. */
+    static boolean apply(RequestLog log, CaptureLevel level, Integer samplePercent, int roll) {
+        if (level == null) {
+            return true;
+        }
+        switch (level) {
+            case FULL -> {
+                return true;
+            }
+            case HEADERS_ONLY -> {
+                log.setRequestBody(null);
+                Map<String, String> responseHeaders = log.getResponseHeaders();
+                log.setResponseSnapshot(null, null, null);
+                log.setResponseHeaders(responseHeaders);
+                log.setResponseBody(null);
+                return true;
+            }
+            case METADATA_ONLY -> {
+                log.setRequestHeaders(null);
+                log.setRequestQueryParams(null);
+                log.setRequestBody(null);
+                log.setResponseSnapshot(null, null, null);
+                log.setResponseHeaders(null);
+                log.setResponseBody(null);
+                log.setAmqpProperties(null);
+                return true;
+            }
+            case COUNT_ONLY -> {
+                return false;
+            }
+            case SAMPLED -> {
+                return samplePercent != null && roll < samplePercent;
+            }
+            default -> throw new IllegalStateException("Unknown capture level " + level);
+        }
+    }
+
+    /** Rejects a sampled capture level without a percentage in 1-100; a missing level means FULL. */
+    static void validate(MockEndpoint endpoint) {
+        if (endpoint.getCaptureLevel() == null) {
+            endpoint.setCaptureLevel(CaptureLevel.FULL);
+        }
+        if (endpoint.getCaptureLevel() == CaptureLevel.SAMPLED) {
+            Integer percent = endpoint.getCaptureSamplePercent();
+            if (percent == null || percent < 1 || percent > 100) {
+                throw new IllegalArgumentException("captureSamplePercent must be between 1 and 100 for SAMPLED capture");
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.blockmock.domain.RequestLog;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk-inserts request logs with PostgreSQL {@code COPY request_log FROM STDIN} (text format),
+ * bypassing Hibernate. Rows are encoded one at a time and streamed to the server, so a batch is
+ * never materialized as a single buffer.
+ * <p>
+ * Ids come from {@code request_log_seq}, the sequence Hibernate uses for {@link RequestLog}. Each
+ * {@code nextval} reserves the same block of {@value #ID_BLOCK} ids Hibernate's pooled optimizer
+ * would, including its handling of the sequence's initial value (see {@link IdAllocator}), so both
+ * ingestion modes can be used against the same table.
+ */
+final class RequestLogCopyWriter {
+
+    static final int ID_BLOCK = 50;
+
+    /** {@code START WITH} of {@code request_log_seq}. */
+    static final long INITIAL_VALUE = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String COPY_SQL = "COPY request_log (id, mock_endpoint_id, mock_response_id, protocol, "
+            + "request_method, request_path, request_headers, request_query_params, request_body, "
+            + "response_status_code, response_headers, response_body, response_delay_ms, "
+            + "amqp_address, amqp_subject, amqp_message_id, amqp_correlation_id, amqp_reply_to, amqp_properties, "
+            + "matched, client_ip, received_at, response_snapshot_hash, "
+            + "request_body_compressed, request_body_length, response_body_compressed, response_body_length) FROM STDIN";
+
+    private static final String ID_SQL = "SELECT nextval('request_log_seq') FROM generate_series(1, ?)";
+
+    private RequestLogCopyWriter() {
+    }
+
+    /**
+     * Assigns ids to {@code logs} and copies them into {@code request_log} on {@code connection}.
+     * The caller owns the connection and its transaction.
+     */
+    static void copy(Connection connection, List<RequestLog> logs) throws SQLException {
+        if (logs.isEmpty()) {
+            return;
+        }
+        assignIds(connection, logs);
+
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder row = new StringBuilder(512);
+            for (RequestLog log : logs) {
+                row.setLength(0);
+                appendRow(row, log);
+                byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void assignIds(Connection connection, List<RequestLog> logs) throws SQLException {
+        IdAllocator allocator = new IdAllocator();
+        int index = 0;
+        try (PreparedStatement statement = connection.prepareStatement(ID_SQL)) {
+            // The initial value yields no block of its own, so a fresh sequence takes a second round
+            for (int round = 0; round < 2 && index < logs.size(); round++) {
+                statement.setInt(1, (logs.size() - index + ID_BLOCK - 1) / ID_BLOCK);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        index = allocator.assign(rs.getLong(1), logs, index);
+                    }
+                }
+            }
+        }
+        if (index < logs.size()) {
+            throw new SQLException("request_log_seq returned too few ids for " + logs.size() + " logs");
+        }
+    }
+
+    /**
+     * Turns {@code request_log_seq} values into ids the way Hibernate's {@code PooledOptimizer} does:
+     * a value is the highest id of the block of {@value #ID_BLOCK} below it, except the sequence's
+     * {@link #INITIAL_VALUE}, which is the lowest id of a block ending at the next value
+     * ({@code 1, 51} hands out 1..51, not just 1 and then 2..51).
+     */
+    static final class IdAllocator {
+
+        /** The initial value, once seen and until the next value closes its block; 0 otherwise. */
+        private long pendingLow;
+
+        /** Assigns the ids of {@code value} to {@code logs} from {@code index} on; returns the next index. */
+        int assign(long value, List<RequestLog> logs, int index) {
+            if (pendingLow == 0 && value == INITIAL_VALUE) {
+                pendingLow = value;
+                return index;
+            }
+            long low = pendingLow != 0 ? pendingLow : value - ID_BLOCK + 1;
+            pendingLow = 0;
+            for (long id = low; id <= value && index < logs.size(); id++) {
+                logs.get(index++).id = id;
+            }
+            return index;
+        }
+    }
+
+    /** Appends one row in COPY text format, terminated by a newline. */
+    static void appendRow(StringBuilder row, RequestLog log) {
+        field(row, log.id);
+        field(row, log.getMockEndpoint() != null ? log.getMockEndpoint().id : null);
+        field(row, log.getMockResponse() != null ? log.getMockResponse().id : null);
+        field(row, log.getProtocol() != null ? log.getProtocol().name() : null);
+        field(row, log.getRequestMethod());
+        field(row, log.getRequestPath());
+        field(row, json(log.getRequestHeaders()));
+        field(row, json(log.getRequestQueryParams()));
+        field(row, log.getRequestBody());
+        field(row, log.getResponseStatusCode());
+        // Inline payload only when there is no snapshot to reference
+        boolean inline = log.getResponseSnapshotHash() == null;
+        field(row, inline ? json(log.getResponseHeaders()) : null);
+        field(row, inline ? log.getResponseBody() : null);
+        field(row, log.getResponseDelayMs());
+        field(row, log.getAmqpAddress());
+        field(row, log.getAmqpSubject());
+        field(row, log.getAmqpMessageId());
+        field(row, log.getAmqpCorrelationId());
+        field(row, log.getAmqpReplyTo());
+        field(row, json(log.getAmqpProperties()));
+        field(row, Boolean.TRUE.equals(log.getMatched()) ? "t" : "f");
+        field(row, log.getClientIp());
+        field(row, log.getReceivedAt());
+        field(row, log.getResponseSnapshotHash());
+        field(row, bytea(log.getRequestBodyCompressed()));
+        field(row, log.getRequestBodyLength());
+        field(row, bytea(log.getResponseBodyCompressed()));
+        field(row, log.getResponseBodyLength());
+        row.setCharAt(row.length() - 1, '\n');
+    }
+
+    private static void field(StringBuilder row, Object value) {
+        if (value == null) {
+            row.append("\\N");
+        } else {
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\' -> row.append("\\\\");
+                    case '\n' -> row.append("\\n");
+                    case '\r' -> row.append("\\r");
+                    case '\t' -> row.append("\\t");
+                    default -> row.append(c);
+                }
+            }
+        }
+        row.append('\t');
+    }
+
+    /** bytea hex input format; {@link #field} escapes the leading backslash. */
+    private static String bytea(byte[] bytes) {
+        return bytes != null ? "\\x" + HexFormat.of().formatHex(bytes) : null;
+    }
+
+    private static String json(Map<String, String> map) {
+        if (map == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize request log map", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams request logs straight from a server-side cursor to an output stream as NDJSON (one JSON
+ * object per line) or CSV, oldest first. Rows are read {@code fetch-size} at a time over plain
+ * JDBC and written as they arrive, so memory use does not depend on the number of rows.
+ * <p>
+ * Response payloads are resolved from their snapshot and compressed bodies are inflated, so every
+ * row is complete. JSON columns are copied as they are stored.
+ */
+@ApplicationScoped
+public class RequestLogExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String mediaType;
+        public final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+    }
+
+    static final String[] COLUMNS = {
+            "id", "mockEndpointId", "mockResponseId", "protocol", "requestMethod", "requestPath",
+            "requestHeaders", "requestQueryParams", "requestBody", "responseStatusCode", "responseHeaders",
+            "responseBody", "responseDelayMs", "amqpAddress", "amqpSubject", "amqpMessageId",
+            "amqpCorrelationId", "amqpReplyTo", "amqpProperties", "matched", "clientIp", "receivedAt"
+    };
+
+    /** Columns holding JSON text, numbers or booleans, written unquoted in NDJSON. */
+    private static final boolean[] RAW_COLUMN = new boolean[COLUMNS.length];
+
+    static {
+        for (int i : new int[]{0, 1, 2, 6, 7, 9, 10, 12, 18, 19}) {
+            RAW_COLUMN[i] = true;
+        }
+    }
+
+    private static final String SELECT_SQL = "SELECT l.id, l.mock_endpoint_id, l.mock_response_id, l.protocol, "
+            + "l.request_method, l.request_path, l.request_headers::text, l.request_query_params::text, "
+            + "l.request_body, l.response_status_code, COALESCE(s.headers, l.response_headers)::text, "
+            + "COALESCE(s.body, l.response_body), l.response_delay_ms, l.amqp_address, l.amqp_subject, "
+            + "l.amqp_message_id, l.amqp_correlation_id, l.amqp_reply_to, l.amqp_properties::text, l.matched, "
+            + "l.client_ip, l.received_at, l.request_body_compressed, l.request_body_length, "
+            + "l.response_body_compressed, l.response_body_length "
+            + "FROM request_log l LEFT JOIN response_snapshot s ON s.hash = l.response_snapshot_hash WHERE ";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "blockmock.request-log.export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    /**
+     * Writes every log matching {@code filter} to {@code out}.
+     *
+     * @return the number of rows written
+     */
+    public long export(RequestLogFilter filter, Format format, OutputStream out) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT_SQL + filter.sql(params) + " ORDER BY l.received_at, l.id";
+        try (Connection connection = dataSource.getConnection()) {
+            // PostgreSQL only uses a cursor (and honours the fetch size) outside autocommit. The
+            // transaction is rolled back, not marked read-only: the pool does not reset that flag
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    return format == Format.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Request log export failed: " + e.getMessage(), e);
+        }
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        String[] values = new String[COLUMNS.length];
+        JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(null);
+        while (rs.next()) {
+            read(rs, values);
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                json.writeFieldName(COLUMNS[i]);
+                if (values[i] == null) {
+                    json.writeNull();
+                } else if (RAW_COLUMN[i]) {
+                    json.writeRawValue(values[i]);
+                } else {
+                    json.writeString(values[i]);
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            rows++;
+        }
+        json.flush();
+        return rows;
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        String[] values = new String[COLUMNS.length];
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writeCsvRow(writer, COLUMNS);
+        while (rs.next()) {
+            read(rs, values);
+            writeCsvRow(writer, values);
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    /** Reads one row into {@code values}, in {@link #COLUMNS} order. */
+    private static void read(ResultSet rs, String[] values) throws SQLException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            values[i] = rs.getString(i + 1);
+        }
+        values[19] = rs.getBoolean(20) ? "true" : "false";
+        Timestamp receivedAt = rs.getTimestamp(22);
+        values[21] = receivedAt != null ? receivedAt.toLocalDateTime().toString() : null;
+        byte[] requestBody = rs.getBytes(23);
+        if (requestBody != null) {
+            values[8] = BodyCompression.inflate(requestBody, (Integer) rs.getObject(24));
+        }
+        byte[] responseBody = rs.getBytes(25);
+        if (responseBody != null) {
+            values[11] = BodyCompression.inflate(responseBody, (Integer) rs.getObject(26));
+        }
+    }
+
+    /** RFC 4180: fields with separators, quotes or line breaks are quoted, quotes doubled. */
+    static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
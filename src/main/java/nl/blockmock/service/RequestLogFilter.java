@@ -0,0 +1,115 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.ProtocolType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional criteria for request log queries; {@code null} fields do not filter. Applies to
+ * {@link RecentLog in-memory logs}, and to {@code request_log} as a Panache query or plain SQL.
+ *
+ * @param from       inclusive lower bound on {@code receivedAt}
+ * @param to         exclusive upper bound on {@code receivedAt}
+ * @param pathPrefix prefix of the HTTP request path
+ */
+public record RequestLogFilter(Long endpointId, ProtocolType protocol, Boolean matched,
+                               LocalDateTime from, LocalDateTime to, String pathPrefix, Integer statusCode) {
+
+    public static final RequestLogFilter NONE = new RequestLogFilter(null, null, null);
+
+    public RequestLogFilter(Long endpointId, ProtocolType protocol, Boolean matched) {
+        this(endpointId, protocol, matched, null, null, null, null);
+    }
+
+    public boolean test(RecentLog log) {
+        return (endpointId == null || endpointId.equals(log.mockEndpointId()))
+                && (protocol == null || protocol == log.protocol())
+                && (matched == null || matched == log.matched())
+                && (from == null || (log.receivedAt() != null && !log.receivedAt().isBefore(from)))
+                && (to == null || (log.receivedAt() != null && log.receivedAt().isBefore(to)))
+                && (pathPrefix == null || (log.requestPath() != null && log.requestPath().startsWith(pathPrefix)))
+                && (statusCode == null || statusCode.equals(log.responseStatusCode()));
+    }
+
+    /** The filter as a Panache query on {@code RequestLog}, with its named parameters added to {@code params}. */
+    String query(Map<String, Object> params) {
+        StringBuilder query = new StringBuilder("1 = 1");
+        if (endpointId != null) {
+            query.append(" and mockEndpoint.id = :endpointId");
+            params.put("endpointId", endpointId);
+        }
+        if (protocol != null) {
+            query.append(" and protocol = :protocol");
+            params.put("protocol", protocol);
+        }
+        if (matched != null) {
+            query.append(" and matched = :matched");
+            params.put("matched", matched);
+        }
+        if (from != null) {
+            query.append(" and receivedAt >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            query.append(" and receivedAt < :to");
+            params.put("to", to);
+        }
+        if (pathPrefix != null) {
+            query.append(" and requestPath like :pathPrefix escape '\\'");
+            params.put("pathPrefix", likePrefix(pathPrefix));
+        }
+        if (statusCode != null) {
+            query.append(" and responseStatusCode = :statusCode");
+            params.put("statusCode", statusCode);
+        }
+        return query.toString();
+    }
+
+    /** The filter as SQL conditions on {@code request_log} aliased {@code l}, with {@code ?} parameters added to {@code params}. */
+    String sql(List<Object> params) {
+        StringBuilder sql = new StringBuilder("true");
+        if (endpointId != null) {
+            sql.append(" AND l.mock_endpoint_id = ?");
+            params.add(endpointId);
+        }
+        if (protocol != null) {
+            sql.append(" AND l.protocol = ?");
+            params.add(protocol.name());
+        }
+        if (matched != null) {
+            sql.append(" AND l.matched = ?");
+            params.add(matched);
+        }
+        if (from != null) {
+            sql.append(" AND l.received_at >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND l.received_at < ?");
+            params.add(to);
+        }
+        if (pathPrefix != null) {
+            sql.append(" AND l.request_path LIKE ? ESCAPE '\\'");
+            params.add(likePrefix(pathPrefix));
+        }
+        if (statusCode != null) {
+            sql.append(" AND l.response_status_code = ?");
+            params.add(statusCode);
+        }
+        return sql.toString();
+    }
+
+    static String likePrefix(String prefix) {
+        return likeEscape(prefix) + "%";
+    }
+
+    static String likeContains(String text) {
+        return "%" + likeEscape(text) + "%";
+    }
+
+    private static String likeEscape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,34 @@
+package nl.blockmock.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated request log query, newest first. {@code nextCursor} is
+ * {@code null} on the last page; otherwise it is passed back to get the next (older) page.
+ */
+public record RequestLogPage(List<RequestLogSummary> items, String nextCursor) {
+
+    /** Position after the last row of a page: rows older than {@code (receivedAt, id)} come next. */
+    record Cursor(LocalDateTime receivedAt, long id) {
+
+        String encode() {
+            String raw = receivedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
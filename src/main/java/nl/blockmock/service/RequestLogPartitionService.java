@@ -0,0 +1,138 @@
+package nl.blockmock.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import nl.blockmock.domain.RequestLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Maintains the daily partitions of {@code request_log} (see the V6 migration): creates the
+ * partitions for today and the next {@code premake-days} days ahead of time at startup and every
+ * {@code check-interval}. Expired partitions are dropped by {@link RequestLogRetentionService}
+ * through {@link #dropPartitionsBefore(LocalDate)}; dropping a partition is a metadata operation,
+ * unlike a mass {@code DELETE}, so it neither bloats the table nor blocks the log writer for long.
+ */
+@ApplicationScoped
+public class RequestLogPartitionService {
+
+    private static final Logger LOG = Logger.getLogger(RequestLogPartitionService.class);
+
+    static final String PARTITION_PREFIX = "request_log_p";
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @ConfigProperty(name = "blockmock.request-log.partition.premake-days", defaultValue = "7")
+    int premakeDays;
+
+    void onStart(@Observes StartupEvent event) {
+        maintain();
+    }
+
+    @Scheduled(every = "${blockmock.request-log.partition.check-interval:1h}", delayed = "1m",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledMaintain() {
+        maintain();
+    }
+
+    /** Creates the upcoming partitions that do not exist yet. Failures are logged, never thrown. */
+    public synchronized void maintain() {
+        try {
+            for (LocalDate day : missingDays(partitionDays(), LocalDate.now(), premakeDays)) {
+                createPartition(day);
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Request log partition maintenance failed");
+        }
+    }
+
+    /**
+     * Drops every daily partition that only holds logs from before {@code cutoff}, each in its own
+     * transaction, so the exclusive lock a drop takes on {@code request_log} is released right after
+     * it. Callers should not hold a transaction of their own, which would stay open across all drops.
+     *
+     * @return the number of partitions dropped
+     */
+    public synchronized int dropPartitionsBefore(LocalDate cutoff) {
+        int dropped = 0;
+        for (LocalDate day : expiredDays(partitionDays(), cutoff)) {
+            String name = partitionName(day);
+            QuarkusTransaction.requiringNew().run(() ->
+                    RequestLog.getEntityManager().createNativeQuery("DROP TABLE IF EXISTS " + name).executeUpdate());
+            LOG.infof("Dropped request log partition %s", name);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /** Days that currently have a partition, in ascending order. */
+    @SuppressWarnings("unchecked")
+    public List<LocalDate> partitionDays() {
+        List<String> names = QuarkusTransaction.requiringNew().call(() -> RequestLog.getEntityManager()
+                .createNativeQuery("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'request_log'::regclass")
+                .getResultList());
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (String name : names) {
+            partitionDay(name).ifPresent(days::add);
+        }
+        return new ArrayList<>(days);
+    }
+
+    private void createPartition(LocalDate day) {
+        String name = partitionName(day);
+        try {
+            QuarkusTransaction.requiringNew().run(() -> RequestLog.getEntityManager()
+                    .createNativeQuery("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF request_log "
+                            + "FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')")
+                    .executeUpdate());
+            LOG.infof("Created request log partition %s", name);
+        } catch (Exception e) {
+            // Typically rows for this day already landed in the default partition
+            LOG.warnf("Could not create request log partition %s: %s", name, e.getMessage());
+        }
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + DAY_SUFFIX.format(day);
+    }
+
+    static Optional<LocalDate> partitionDay(String name) {
+        if (name == null || !name.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(name.substring(PARTITION_PREFIX.length()), DAY_SUFFIX));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Days from {@code today} through {@code today + premakeDays} that have no partition yet. */
+    static List<LocalDate> missingDays(Collection<LocalDate> existing, LocalDate today, int premakeDays) {
+        List<LocalDate> missing = new ArrayList<>();
+        for (int i = 0; i <= premakeDays; i++) {
+            LocalDate day = today.plusDays(i);
+            if (!existing.contains(day)) {
+                missing.add(day);
+            }
+        }
+        return missing;
+    }
+
+    /** Existing partition days that end on or before {@code cutoff}, i.e. hold only older logs. */
+    static List<LocalDate> expiredDays(Collection<LocalDate> existing, LocalDate cutoff) {
+        return existing.stream().filter(day -> day.isBefore(cutoff)).sorted().toList();
+    }
+}
@@ -0,0 +1,217 @@
+package nl.blockmock.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.Query;
+import nl.blockmock.domain.RequestLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@code request_log} bounded. Every {@code interval} it removes logs older than
+ * {@code max-age-days} (dropping whole daily partitions first), then the oldest logs beyond
+ * {@code max-rows} per endpoint and beyond {@code max-rows} overall. A limit of 0 disables it;
+ * all limits default to 0, so logs are kept until a limit is configured. The per-endpoint limit is
+ * checked for each configured endpoint with an index lookup of its boundary row, never by counting
+ * the whole table; logs of deleted endpoints fall under the overall limit only.
+ * <p>
+ * Rows are deleted oldest first, in chunks of {@code chunk-size} ordered by
+ * {@code (received_at, id)}, each in its own short transaction. Between chunks the job pauses for {@code chunk-pause}, and keeps
+ * pausing while the {@link RequestLogWriter} has a chunk's worth of logs queued, so it yields to
+ * live mock traffic.
+ * <p>
+ * Finally, {@link ResponseSnapshot response snapshots} that no log references any more are removed,
+ * except those of current responses and those younger than a day (their logs may still be queued).
+ * Logs replayed from spill files later re-create the snapshot they reference.
+ */
+@ApplicationScoped
+public class RequestLogRetentionService {
+
+    private static final Logger LOG = Logger.getLogger(RequestLogRetentionService.class);
+
+    /** Upper bound on the extra pauses taken per chunk while the log writer is busy. */
+    private static final int MAX_BACKOFF_PAUSES = 50;
+
+    @Inject
+    RequestLogPartitionService partitionService;
+
+    @Inject
+    RequestLogWriter requestLogWriter;
+
+    @Inject
+    MockRouteTable mockRouteTable;
+
+    @ConfigProperty(name = "blockmock.request-log.retention.max-age-days", defaultValue = "0")
+    int maxAgeDays;
+
+    @ConfigProperty(name = "blockmock.request-log.retention.max-rows", defaultValue = "0")
+    long maxRows;
+
+    @ConfigProperty(name = "blockmock.request-log.retention.max-rows-per-endpoint", defaultValue = "0")
+    long maxRowsPerEndpoint;
+
+    @ConfigProperty(name = "blockmock.request-log.retention.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "blockmock.request-log.retention.chunk-pause", defaultValue = "100ms")
+    Duration chunkPause;
+
+    private final AtomicLong totalRowsDeleted = new AtomicLong();
+    private final AtomicLong totalPartitionsDropped = new AtomicLong();
+    private volatile Run lastRun;
+
+    /** Outcome of one retention pass. */
+    public record Run(LocalDateTime startedAt, long durationMs, int partitionsDropped, long rowsDeleted,
+                      int snapshotsDeleted) {}
+
+    /** Totals since startup plus the last pass, if any. */
+    public record Stats(long totalRowsDeleted, long totalPartitionsDropped, Run lastRun) {}
+
+    @Scheduled(every = "${blockmock.request-log.retention.interval:5m}", delayed = "1m",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            LOG.errorf(e, "Request log retention failed");
+        }
+    }
+
+    /** Applies every configured limit once. */
+    public synchronized Run run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        int partitionsDropped = 0;
+        long rowsDeleted = 0;
+
+        if (maxAgeDays > 0) {
+            LocalDateTime cutoff = startedAt.minusDays(maxAgeDays);
+            partitionsDropped = partitionService.dropPartitionsBefore(cutoff.toLocalDate());
+            rowsDeleted += deleteInChunks("received_at < :cutoff", q -> q.setParameter("cutoff", cutoff));
+        }
+        if (maxRowsPerEndpoint > 0) {
+            for (Long endpointId : configuredEndpoints()) {
+                rowsDeleted += deleteBeyondNewest(maxRowsPerEndpoint, endpointId);
+            }
+        }
+        if (maxRows > 0) {
+            rowsDeleted += deleteBeyondNewest(maxRows, null);
+        }
+
+        int snapshotsDeleted = deleteUnreferencedSnapshots(startedAt.minusDays(1));
+
+        Run run = new Run(startedAt, Duration.ofNanos(System.nanoTime() - start).toMillis(),
+                partitionsDropped, rowsDeleted, snapshotsDeleted);
+        totalRowsDeleted.addAndGet(rowsDeleted);
+        totalPartitionsDropped.addAndGet(partitionsDropped);
+        lastRun = run;
+        if (rowsDeleted > 0 || partitionsDropped > 0 || snapshotsDeleted > 0) {
+            LOG.infof("Request log retention deleted %d rows, %d partitions and %d response snapshots in %d ms",
+                    rowsDeleted, partitionsDropped, snapshotsDeleted, run.durationMs());
+        }
+        return run;
+    }
+
+    public Stats stats() {
+        return new Stats(totalRowsDeleted.get(), totalPartitionsDropped.get(), lastRun);
+    }
+
+    private int deleteUnreferencedSnapshots(LocalDateTime createdBefore) {
+        List<String> live = new ArrayList<>(List.of(""));
+        mockRouteTable.current().responseSnapshots().values().forEach(snapshot -> live.add(snapshot.hash()));
+        return QuarkusTransaction.requiringNew().call(() -> RequestLog.getEntityManager()
+                .createNativeQuery("DELETE FROM response_snapshot s WHERE s.created_at < :createdBefore "
+                        + "AND s.hash NOT IN (:live) "
+                        + "AND NOT EXISTS (SELECT 1 FROM request_log l WHERE l.response_snapshot_hash = s.hash)")
+                .setParameter("createdBefore", createdBefore)
+                .setParameter("live", live)
+                .executeUpdate());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> configuredEndpoints() {
+        List<Number> ids = QuarkusTransaction.requiringNew().call(() -> RequestLog.getEntityManager()
+                .createNativeQuery("SELECT id FROM mock_endpoint ORDER BY id")
+                .getResultList());
+        return ids.stream().map(Number::longValue).toList();
+    }
+
+    /**
+     * Deletes everything older than the {@code keep} newest logs, of one endpoint or (with a null
+     * endpoint) of the whole table. The boundary row is looked up once, so logs arriving meanwhile
+     * are never touched; for an endpoint it is read from {@code idx_request_log_endpoint_received_at}
+     * and costs at most {@code keep} index entries, and nothing is deleted below the limit.
+     */
+    private long deleteBeyondNewest(long keep, Long endpointId) {
+        String scope = endpointId != null ? "mock_endpoint_id = :endpoint" : "true";
+        Object[] boundary = QuarkusTransaction.requiringNew().call(() -> {
+            Query query = RequestLog.getEntityManager()
+                    .createNativeQuery("SELECT received_at, id FROM request_log WHERE " + scope
+                            + " ORDER BY received_at DESC, id DESC OFFSET :keep LIMIT 1")
+                    .setParameter("keep", keep);
+            if (endpointId != null) {
+                query.setParameter("endpoint", endpointId);
+            }
+            List<?> rows = query.getResultList();
+            return rows.isEmpty() ? null : (Object[]) rows.get(0);
+        });
+        if (boundary == null) {
+            return 0;
+        }
+        LocalDateTime receivedAt = toLocalDateTime(boundary[0]);
+        long id = ((Number) boundary[1]).longValue();
+        return deleteInChunks(scope + " AND (received_at, id) <= (:receivedAt, :id)", q -> {
+            q.setParameter("receivedAt", receivedAt);
+            q.setParameter("id", id);
+            if (endpointId != null) {
+                q.setParameter("endpoint", endpointId);
+            }
+        });
+    }
+
+    private long deleteInChunks(String condition, Consumer<Query> parameters) {
+        String sql = "DELETE FROM request_log WHERE (id, received_at) IN "
+                + "(SELECT id, received_at FROM request_log WHERE " + condition
+                + " ORDER BY received_at, id LIMIT :chunk)";
+        long deleted = 0;
+        while (true) {
+            int count = QuarkusTransaction.requiringNew().call(() -> {
+                Query query = RequestLog.getEntityManager().createNativeQuery(sql).setParameter("chunk", chunkSize);
+                parameters.accept(query);
+                return query.executeUpdate();
+            });
+            deleted += count;
+            if (count < chunkSize || !pause()) {
+                return deleted;
+            }
+        }
+    }
+
+    /** Sleeps between chunks, longer while the log writer is behind. Returns false if interrupted. */
+    private boolean pause() {
+        try {
+            Thread.sleep(chunkPause.toMillis());
+            for (int i = 0; i < MAX_BACKOFF_PAUSES && requestLogWriter.pending() >= chunkSize; i++) {
+                Thread.sleep(chunkPause.toMillis());
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,190 @@
+package nl.blockmock.service;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import nl.blockmock.domain.ProtocolType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Case-insensitive substring search over logged requests, e.g. "which call carried orderId 12345".
+ * Each searched field has a trigram GIN index (see the V11 migration), so a term of at least
+ * {@link #MIN_TERM_LENGTH} characters is answered from the indexes rather than a table scan.
+ * Results are {@link RequestLogPage pages} of summaries, newest first, combined with the usual
+ * {@link RequestLogFilter} criteria.
+ * <p>
+ * Bodies stored compressed (see {@link BodyCompression}) are not searched. When the body is
+ * searched, every {@link Result} therefore reports how many logs matching the filter have a
+ * compressed body, so an empty page does not silently mean "not found".
+ */
+@ApplicationScoped
+public class RequestLogSearch {
+
+    /** Trigram indexes cannot narrow down shorter terms. */
+    static final int MIN_TERM_LENGTH = 3;
+
+    /** Counting skipped compressed bodies stops here. */
+    static final int MAX_SKIPPED_COUNT = 10_000;
+
+    /**
+     * One page of matches, newest first; {@code nextCursor} as in {@link RequestLogPage}.
+     * {@code compressedBodiesSkipped} is the number of logs matching the filter whose body is stored
+     * compressed and was therefore not searched (at most {@value #MAX_SKIPPED_COUNT}); 0 when the
+     * body is not among the searched fields.
+     */
+    public record Result(List<RequestLogSummary> items, String nextCursor, long compressedBodiesSkipped) {}
+
+    /** Searchable columns; the expressions match the indexed ones. */
+    public enum Field {
+        BODY("l.request_body"),
+        PATH("l.request_path"),
+        HEADERS("l.request_headers::text"),
+        PROPERTIES("l.amqp_properties::text");
+
+        final String expression;
+
+        Field(String expression) {
+            this.expression = expression;
+        }
+
+        /** Parses a comma-separated list of field names; blank means every field. */
+        public static Set<Field> parse(String fields) {
+            if (fields == null || fields.isBlank()) {
+                return EnumSet.allOf(Field.class);
+            }
+            Set<Field> parsed = EnumSet.noneOf(Field.class);
+            for (String name : fields.split(",")) {
+                try {
+                    parsed.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown search field: " + name.trim());
+                }
+            }
+            return parsed;
+        }
+    }
+
+    private static final String SELECT_SQL = "SELECT l.id, l.mock_endpoint_id, l.mock_response_id, l.protocol, "
+            + "l.request_method, l.request_path, l.amqp_address, l.response_status_code, l.response_delay_ms, "
+            + "l.matched, l.client_ip, l.received_at FROM request_log l WHERE ";
+
+    private static final String SKIPPED_SQL = "SELECT count(*) FROM (SELECT 1 FROM request_log l WHERE %s "
+            + "AND l.request_body_compressed IS NOT NULL LIMIT " + MAX_SKIPPED_COUNT + ") skipped";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    /**
+     * Logs matching {@code filter} with {@code term} in any of {@code fields}.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @throws IllegalArgumentException if the term is too short or the cursor is invalid
+     */
+    public Result search(String term, Set<Field> fields, RequestLogFilter filter, String cursor, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_SQL)
+                .append(filter.sql(params))
+                .append(" AND ").append(condition(term, fields, params));
+        if (cursor != null && !cursor.isBlank()) {
+            RequestLogPage.Cursor after = RequestLogPage.Cursor.decode(cursor);
+            sql.append(" AND (l.received_at, l.id) < (?, ?)");
+            params.add(after.receivedAt());
+            params.add(after.id());
+        }
+        // One extra row tells whether there is a next page
+        sql.append(" ORDER BY l.received_at DESC, l.id DESC LIMIT ?");
+        params.add(limit + 1);
+
+        List<RequestLogSummary> rows = new ArrayList<>();
+        long skipped = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(summary(rs));
+                    }
+                }
+            }
+            if (fields.contains(Field.BODY)) {
+                skipped = countCompressed(connection, filter);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Request log search failed: " + e.getMessage(), e);
+        }
+
+        if (rows.size() <= limit) {
+            return new Result(rows, null, skipped);
+        }
+        List<RequestLogSummary> items = rows.subList(0, limit);
+        RequestLogSummary last = items.get(limit - 1);
+        return new Result(List.copyOf(items), new RequestLogPage.Cursor(last.receivedAt(), last.id()).encode(), skipped);
+    }
+
+    private static long countCompressed(Connection connection, RequestLogFilter filter) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(skippedSql(filter, params))) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** Counts logs matching {@code filter} with a compressed body, up to {@value #MAX_SKIPPED_COUNT}. */
+    static String skippedSql(RequestLogFilter filter, List<Object> params) {
+        return SKIPPED_SQL.formatted(filter.sql(params));
+    }
+
+    /** {@code (field ILIKE ? OR ...)} over the given fields, with the pattern added to {@code params}. */
+    static String condition(String term, Set<Field> fields, List<Object> params) {
+        if (term == null || term.strip().length() < MIN_TERM_LENGTH) {
+            throw new IllegalArgumentException("Search term must be at least " + MIN_TERM_LENGTH + " characters");
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No search fields given");
+        }
+        String pattern = RequestLogFilter.likeContains(term.strip());
+        StringBuilder condition = new StringBuilder("(");
+        for (Field field : fields) {
+            if (condition.length() > 1) {
+                condition.append(" OR ");
+            }
+            condition.append(field.expression).append(" ILIKE ? ESCAPE '\\'");
+            params.add(pattern);
+        }
+        return condition.append(')').toString();
+    }
+
+    private static RequestLogSummary summary(ResultSet rs) throws SQLException {
+        Timestamp receivedAt = rs.getTimestamp(12);
+        return new RequestLogSummary(
+                rs.getLong(1),
+                rs.getObject(2, Long.class),
+                rs.getObject(3, Long.class),
+                ProtocolType.valueOf(rs.getString(4)),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getString(7),
+                rs.getObject(8, Integer.class),
+                rs.getObject(9, Integer.class),
+                rs.getBoolean(10),
+                rs.getString(11),
+                receivedAt != null ? receivedAt.toLocalDateTime() : null);
+    }
+}
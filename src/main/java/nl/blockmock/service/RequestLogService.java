@@ -1,45 +1,126 @@
 package nl.blockmock.service;
 
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import nl.blockmock.domain.ProtocolType;
 import nl.blockmock.domain.RequestLog;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-/** Persists and queries request logs for both HTTP and AMQP traffic. */
+/**
+ * Persists and queries request logs for both HTTP and AMQP traffic.
+ * Logs are written asynchronously by the {@link RequestLogWriter}.
+ */
 @ApplicationScoped
 public class RequestLogService {
 
-    @Transactional
-    public RequestLog log(RequestLog requestLog) {
-        requestLog.persist();
-        return requestLog;
+    @Inject
+    RequestLogWriter requestLogWriter;
+
+    @Inject
+    RequestLogPartitionService partitionService;
+
+    /**
+     * Queues the log for writing, reduced to its endpoint's capture level (see {@link RequestCapture});
+     * it becomes visible to queries once the writer has persisted it.
+     */
+    public void log(RequestLog requestLog) {
+        if (RequestCapture.apply(requestLog)) {
+            requestLogWriter.submit(requestLog);
+        }
     }
 
-    public List<RequestLog> findAll() {
-        return RequestLog.listAll(Sort.descending("receivedAt"));
+    /** Waits until every log queued so far has been written. */
+    public void flush() {
+        requestLogWriter.flush();
     }
 
-    public List<RequestLog> findRecent(int limit) {
-        return RequestLog.findAll(Sort.descending("receivedAt"))
-                .page(0, limit)
+    /**
+     * Lists like this one return full logs: the response payload of logs that reference a stored
+     * snapshot is resolved for the whole page with one lookup.
+     */
+    public List<RequestLog> findAll(int limit) {
+        return withSnapshots(RequestLog.findAll(Sort.descending("receivedAt", "id")).page(0, limit).list());
+    }
+
+    /**
+     * The newest {@code limit} logs matching {@code filter}, newest first. Served from the writer's
+     * {@link RecentLogBuffer}; only when the buffer holds fewer matches are the remaining ones read
+     * from the database, starting below the oldest buffered log.
+     */
+    public List<RecentLog> findRecent(int limit, RequestLogFilter filter) {
+        RecentLogBuffer.Window window = requestLogWriter.recent().newest(limit, filter::test);
+        if (window.logs().size() >= limit || !window.exhausted()) {
+            return window.logs();
+        }
+        Map<String, Object> params = new HashMap<>();
+        String query = filter.query(params);
+        RecentLog oldest = window.oldestExamined();
+        if (oldest != null) {
+            query += " and (receivedAt < :before or (receivedAt = :before and id < :beforeId))";
+            params.put("before", oldest.receivedAt());
+            params.put("beforeId", oldest.id());
+        }
+        List<RecentLog> logs = new ArrayList<>(window.logs());
+        withSnapshots(RequestLog.<RequestLog>find(query, Sort.descending("receivedAt", "id"), params)
+                .page(0, limit - logs.size())
+                .list()).stream()
+                .map(RecentLog::of)
+                .forEach(logs::add);
+        return logs;
+    }
+
+    /**
+     * A page of logs matching {@code filter}, newest first, continuing after {@code cursor} (from
+     * the previous page) if given. Uses keyset pagination on {@code (receivedAt, id)}, so deep pages
+     * cost the same as the first.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public RequestLogPage query(RequestLogFilter filter, String cursor, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        String query = filter.query(params);
+        if (cursor != null && !cursor.isBlank()) {
+            RequestLogPage.Cursor after = RequestLogPage.Cursor.decode(cursor);
+            query += " and (receivedAt < :cursorAt or (receivedAt = :cursorAt and id < :cursorId))";
+            params.put("cursorAt", after.receivedAt());
+            params.put("cursorId", after.id());
+        }
+        // One extra row tells whether there is a next page
+        List<RequestLogSummary> rows = RequestLog.find(query, Sort.descending("receivedAt", "id"), params)
+                .project(RequestLogSummary.class)
+                .page(0, limit + 1)
                 .list();
+        if (rows.size() <= limit) {
+            return new RequestLogPage(rows, null);
+        }
+        List<RequestLogSummary> items = rows.subList(0, limit);
+        RequestLogSummary last = items.get(limit - 1);
+        return new RequestLogPage(List.copyOf(items),
+                new RequestLogPage.Cursor(last.receivedAt(), last.id()).encode());
     }
 
-    public List<RequestLog> findByEndpoint(Long endpointId) {
-        return RequestLog.list("mockEndpoint.id = ?1", Sort.descending("receivedAt"), endpointId);
+    public List<RequestLog> findByEndpoint(Long endpointId, int limit) {
+        return withSnapshots(RequestLog.find("mockEndpoint.id = ?1", Sort.descending("receivedAt", "id"), endpointId)
+                .page(0, limit).list());
     }
 
-    public List<RequestLog> findByProtocol(ProtocolType protocol) {
-        return RequestLog.list("protocol", Sort.descending("receivedAt"), protocol);
+    public List<RequestLog> findByProtocol(ProtocolType protocol, int limit) {
+        return withSnapshots(RequestLog.find("protocol", Sort.descending("receivedAt", "id"), protocol)
+                .page(0, limit).list());
     }
 
-    public List<RequestLog> findMatched(boolean matched) {
-        return RequestLog.list("matched", Sort.descending("receivedAt"), matched);
+    public List<RequestLog> findMatched(boolean matched, int limit) {
+        return withSnapshots(RequestLog.find("matched", Sort.descending("receivedAt", "id"), matched)
+                .page(0, limit).list());
     }
 
     public List<RequestLog> findBetween(LocalDateTime start, LocalDateTime end) {
@@ -47,18 +128,48 @@ public class RequestLogService {
                 Sort.descending("receivedAt"), start, end);
     }
 
+    /**
+     * A single log with its bodies inflated if they were stored compressed and its response
+     * snapshot resolved. The returned entity is detached, so neither is ever written back.
+     */
+    @Transactional
     public Optional<RequestLog> findById(Long id) {
-        return RequestLog.findByIdOptional(id);
+        Optional<RequestLog> found = RequestLog.findByIdOptional(id);
+        found.ifPresent(log -> {
+            String requestBody = BodyCompression.requestBody(log);
+            String responseBody = BodyCompression.responseBody(log);
+            RequestLog.getEntityManager().detach(log);
+            log.setRequestBody(requestBody);
+            if (log.getResponseSnapshotHash() == null) {
+                log.setResponseBody(responseBody);
+            } else {
+                ResponseSnapshot.resolve(List.of(log));
+            }
+        });
+        return found;
     }
 
-    @Transactional
+    private static List<RequestLog> withSnapshots(List<RequestLog> logs) {
+        ResponseSnapshot.resolve(logs);
+        return logs;
+    }
+
+    /**
+     * Not transactional itself: each partition is dropped in its own short transaction, so no lock
+     * is held across drops, and the rows left are deleted in one more.
+     */
     public void deleteOlderThan(LocalDateTime cutoff) {
-        RequestLog.delete("receivedAt < ?1", cutoff);
+        // Whole days go by dropping their partition; only the cutoff day and the default partition remain
+        partitionService.dropPartitionsBefore(cutoff.toLocalDate());
+        QuarkusTransaction.requiringNew().run(() -> RequestLog.delete("receivedAt < ?1", cutoff));
     }
 
     @Transactional
     public void deleteAll() {
+        // Otherwise logs still queued would reappear after the delete
+        requestLogWriter.flush();
         RequestLog.deleteAll();
+        requestLogWriter.recent().clear();
     }
 
     public long countByEndpoint(Long endpointId) {
@@ -0,0 +1,444 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.AmqpMockEndpoint;
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.MockEndpoint;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local spill files for request logs the database cannot take right now. Logs are
+ * appended as length-prefixed binary records to a memory-mapped segment of {@code segmentSize}
+ * bytes; a full segment is sealed and the next one started, up to {@code maxSegments} segments
+ * on disk, beyond which appends are refused.
+ * <p>
+ * Sealed segments are {@link #replay replayed} oldest first and deleted once every record has been
+ * written. {@link #replayAll} only seals the active segment once no older one is waiting, so
+ * replays failing during an outage keep filling one segment instead of starting one per attempt. Each segment starts with the offset up to which it has been replayed, advanced after
+ * every written batch, so a replay interrupted by a failure or a restart resumes where it stopped.
+ * Segments left by a previous run are replayed too.
+ */
+final class RequestLogSpill {
+
+    private static final Logger LOG = Logger.getLogger(RequestLogSpill.class);
+
+    private static final String PREFIX = "request-log-";
+    private static final String SUFFIX = ".spill";
+
+    /** Bytes before the first record: the replayed-up-to offset. */
+    private static final int HEADER = Long.BYTES;
+
+    private static final byte FORMAT = 1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    // Guarded by this
+    private long nextSequence;
+    private int segments;
+    private Path activePath;
+    private MappedByteBuffer active;
+
+    RequestLogSpill(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize <= HEADER + Integer.BYTES || maxSegments < 1) {
+            throw new IllegalArgumentException("segmentSize and maxSegments are too small");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        List<Path> existing = segmentFiles();
+        segments = existing.size();
+        nextSequence = existing.isEmpty() ? 1 : sequence(existing.get(existing.size() - 1)) + 1;
+    }
+
+    /** Appends a log. Returns {@code false} if it does not fit in any segment or the segment limit is reached. */
+    boolean append(RequestLog log) {
+        byte[] record = encode(log);
+        synchronized (this) {
+            if (Integer.BYTES + record.length > segmentSize - HEADER) {
+                return false;
+            }
+            if (active == null || active.remaining() < Integer.BYTES + record.length) {
+                sealActive();
+                if (!openSegment()) {
+                    return false;
+                }
+            }
+            // Payload first, so a record is never seen with its length but without its bytes
+            int position = active.position();
+            active.put(position + Integer.BYTES, record);
+            active.putInt(position, record.length);
+            active.position(position + Integer.BYTES + record.length);
+        }
+        spilled.incrementAndGet();
+        return true;
+    }
+
+    /** Seals the active segment if it holds any record, making it available for replay. */
+    synchronized void seal() {
+        if (active != null && active.position() > HEADER) {
+            sealActive();
+        }
+    }
+
+    /** Sealed segments, oldest first. */
+    synchronized List<Path> sealedSegments() throws IOException {
+        List<Path> sealed = segmentFiles();
+        sealed.remove(activePath);
+        return sealed;
+    }
+
+    /**
+     * Replays every sealed segment, oldest first, then seals the active segment and replays it too.
+     * If a replay fails, nothing is sealed: appends continue in the active segment, so repeated
+     * attempts during an outage do not use up the segment limit.
+     *
+     * @return the number of logs replayed
+     */
+    long replayAll(int batchSize, Consumer<List<RequestLog>> writer) throws IOException {
+        long count = replaySealed(batchSize, writer);
+        seal();
+        return count + replaySealed(batchSize, writer);
+    }
+
+    private long replaySealed(int batchSize, Consumer<List<RequestLog>> writer) throws IOException {
+        long count = 0;
+        for (Path segment : sealedSegments()) {
+            long replayedLogs = replay(segment, batchSize, writer);
+            LOG.infof("Replayed %d spilled request logs from %s", replayedLogs, segment.getFileName());
+            count += replayedLogs;
+        }
+        return count;
+    }
+
+    /**
+     * Hands the unreplayed records of a sealed segment to {@code writer} in batches of up to
+     * {@code batchSize}, then deletes the segment. If the writer throws, the segment is kept and
+     * the next replay resumes with the failed batch.
+     *
+     * @return the number of logs replayed
+     */
+    long replay(Path segment, int batchSize, Consumer<List<RequestLog>> writer) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = (int) Math.max(HEADER, buffer.getLong(0));
+            while (true) {
+                List<RequestLog> batch = new ArrayList<>(batchSize);
+                int end = position;
+                while (batch.size() < batchSize && end + Integer.BYTES <= buffer.limit()) {
+                    int length = buffer.getInt(end);
+                    if (length <= 0 || end + Integer.BYTES + length > buffer.limit()) {
+                        break;
+                    }
+                    batch.add(decode(buffer.slice(end + Integer.BYTES, length)));
+                    end += Integer.BYTES + length;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                writer.accept(batch);
+                buffer.putLong(0, end);
+                position = end;
+                count += batch.size();
+                replayed.addAndGet(batch.size());
+            }
+            buffer.force();
+        }
+        Files.delete(segment);
+        synchronized (this) {
+            segments--;
+        }
+        return count;
+    }
+
+    /** Logs appended since startup. */
+    long spilled() {
+        return spilled.get();
+    }
+
+    /** Logs replayed since startup. */
+    long replayed() {
+        return replayed.get();
+    }
+
+    synchronized int segments() {
+        return segments;
+    }
+
+    private void sealActive() {
+        if (active != null) {
+            active.force();
+            active = null;
+            activePath = null;
+        }
+    }
+
+    private boolean openSegment() {
+        if (segments >= maxSegments) {
+            return false;
+        }
+        Path path = directory.resolve(PREFIX + String.format("%012d", nextSequence++) + SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            LOG.errorf("Could not create request log spill segment %s: %s", path, e.getMessage());
+            return false;
+        }
+        active.putLong(0, HEADER);
+        active.position(HEADER);
+        activePath = path;
+        segments++;
+        return true;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> sequence(path) > 0)
+                    .sorted((a, b) -> Long.compare(sequence(a), sequence(b)))
+                    .toList());
+        }
+    }
+
+    private static long sequence(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Everything needed to write the log again; the id is assigned on replay. */
+    static byte[] encode(RequestLog log) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            writeLong(out, log.getMockEndpoint() != null ? log.getMockEndpoint().id : null);
+            writeLong(out, log.getMockResponse() != null ? log.getMockResponse().id : null);
+            writeString(out, log.getProtocol() != null ? log.getProtocol().name() : null);
+            writeString(out, log.getRequestMethod());
+            writeString(out, log.getRequestPath());
+            writeMap(out, log.getRequestHeaders());
+            writeMap(out, log.getRequestQueryParams());
+            writeString(out, log.getRequestBody());
+            writeBytes(out, log.getRequestBodyCompressed());
+            writeInt(out, log.getRequestBodyLength());
+            writeInt(out, log.getResponseStatusCode());
+            writeString(out, log.getResponseSnapshotHash());
+            writeMap(out, log.getResponseHeaders());
+            writeString(out, log.getResponseBody());
+            writeBytes(out, log.getResponseBodyCompressed());
+            writeInt(out, log.getResponseBodyLength());
+            writeInt(out, log.getResponseDelayMs());
+            writeString(out, log.getAmqpAddress());
+            writeString(out, log.getAmqpSubject());
+            writeString(out, log.getAmqpMessageId());
+            writeString(out, log.getAmqpCorrelationId());
+            writeString(out, log.getAmqpReplyTo());
+            writeMap(out, log.getAmqpProperties());
+            out.writeBoolean(Boolean.TRUE.equals(log.getMatched()));
+            writeString(out, log.getClientIp());
+            writeString(out, log.getReceivedAt() != null ? log.getReceivedAt().toString() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** The log as it was before {@link BodyCompression}: compressed bodies are inflated again. */
+    static RequestLog decode(ByteBuffer record) {
+        try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(record))) {
+            byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new IllegalStateException("Unknown spill record format " + format);
+            }
+            RequestLog log = new RequestLog();
+            Long endpointId = readLong(in);
+            Long responseId = readLong(in);
+            String protocol = readString(in);
+            log.setProtocol(protocol != null ? ProtocolType.valueOf(protocol) : null);
+            if (endpointId != null) {
+                // Only the id is written; the endpoint type follows from the protocol
+                MockEndpoint endpoint = log.getProtocol() == ProtocolType.HTTP
+                        ? new HttpMockEndpoint() : new AmqpMockEndpoint();
+                endpoint.id = endpointId;
+                log.setMockEndpoint(endpoint);
+            }
+            if (responseId != null) {
+                MockResponse response = new MockResponse();
+                response.id = responseId;
+                log.setMockResponse(response);
+            }
+            log.setRequestMethod(readString(in));
+            log.setRequestPath(readString(in));
+            log.setRequestHeaders(readMap(in));
+            log.setRequestQueryParams(readMap(in));
+            String requestBody = readString(in);
+            byte[] requestCompressed = readBytes(in);
+            Integer requestLength = readInt(in);
+            log.setRequestBody(requestCompressed != null
+                    ? BodyCompression.inflate(requestCompressed, requestLength) : requestBody);
+            log.setResponseStatusCode(readInt(in));
+            String snapshotHash = readString(in);
+            Map<String, String> responseHeaders = readMap(in);
+            String responseBody = readString(in);
+            byte[] responseCompressed = readBytes(in);
+            Integer responseLength = readInt(in);
+            if (responseCompressed != null) {
+                responseBody = BodyCompression.inflate(responseCompressed, responseLength);
+            }
+            if (snapshotHash != null) {
+                log.setResponseSnapshot(snapshotHash, responseHeaders, responseBody);
+            } else {
+                log.setResponseHeaders(responseHeaders);
+                log.setResponseBody(responseBody);
+            }
+            log.setResponseDelayMs(readInt(in));
+            log.setAmqpAddress(readString(in));
+            log.setAmqpSubject(readString(in));
+            log.setAmqpMessageId(readString(in));
+            log.setAmqpCorrelationId(readString(in));
+            log.setAmqpReplyTo(readString(in));
+            log.setAmqpProperties(readMap(in));
+            log.setMatched(in.readBoolean());
+            log.setClientIp(readString(in));
+            String receivedAt = readString(in);
+            log.setReceivedAt(receivedAt != null ? LocalDateTime.parse(receivedAt) : null);
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt spill record", e);
+        }
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeInt(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+        out.writeInt(map != null ? map.size() : -1);
+        if (map != null) {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readMap(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
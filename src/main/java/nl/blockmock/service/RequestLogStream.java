@@ -0,0 +1,59 @@
+package nl.blockmock.service;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes newly written request logs to live subscribers (the {@code /api/logs/stream} SSE
+ * endpoint). The {@link RequestLogWriter} publishes each written batch; every subscriber receives
+ * the logs matching its {@link RequestLogFilter}.
+ * <p>
+ * Each subscriber is decoupled from the writer by a bounded buffer (Mutiny's default overflow
+ * buffer size). A client that cannot keep up loses the logs that arrive while its buffer is full;
+ * the writer never waits for a client.
+ */
+@ApplicationScoped
+public class RequestLogStream {
+
+    private record Subscription(RequestLogFilter filter, MultiEmitter<? super RecentLog> emitter) {}
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+
+    /** Logs written from now on that match {@code filter}, until the subscriber cancels. */
+    public Multi<RecentLog> subscribe(RequestLogFilter filter) {
+        return Multi.createFrom().<RecentLog>emitter(emitter -> {
+                    Subscription subscription = new Subscription(filter, emitter);
+                    subscriptions.add(subscription);
+                    emitter.onTermination(() -> subscriptions.remove(subscription));
+                })
+                .onOverflow().invoke(log -> dropped.increment()).drop()
+                .emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /** Called by the writer thread with each written batch; never blocks. */
+    void publish(List<RecentLog> logs) {
+        for (Subscription subscription : subscriptions) {
+            for (RecentLog log : logs) {
+                if (subscription.filter().test(log)) {
+                    subscription.emitter().emit(log);
+                }
+            }
+        }
+    }
+
+    public int subscribers() {
+        return subscriptions.size();
+    }
+
+    /** Logs not delivered to a subscriber because it fell behind. */
+    public long dropped() {
+        return dropped.sum();
+    }
+}
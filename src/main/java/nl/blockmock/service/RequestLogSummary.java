@@ -0,0 +1,25 @@
+package nl.blockmock.service;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+import nl.blockmock.domain.ProtocolType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of a request log row for list queries: no headers, bodies or
+ * properties. Fetch {@code /api/logs/{id}} for the full log.
+ */
+public record RequestLogSummary(
+        Long id,
+        @ProjectedFieldName("mockEndpoint.id") Long mockEndpointId,
+        @ProjectedFieldName("mockResponse.id") Long mockResponseId,
+        ProtocolType protocol,
+        String requestMethod,
+        String requestPath,
+        String amqpAddress,
+        Integer responseStatusCode,
+        Integer responseDelayMs,
+        Boolean matched,
+        String clientIp,
+        LocalDateTime receivedAt
+) {}
@@ -0,0 +1,469 @@
+package nl.blockmock.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import nl.blockmock.domain.RequestLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes request logs off the request path. Mock handlers {@link #submit(RequestLog) submit} a log
+ * to a bounded {@link BatchingQueue}; a background thread persists them in batches, one
+ * transaction and one JDBC batch per drain, so mock latency does not include a database insert.
+ * With {@code blockmock.request-log.ingestion=COPY} batches are streamed with PostgreSQL
+ * {@code COPY} instead (see {@link RequestLogCopyWriter}), avoiding per-row statement overhead.
+ * Bodies of at least {@code compress-threshold} bytes are deflated by the writer thread
+ * (see {@link BodyCompression}). Written logs are also kept in a {@link RecentLogBuffer} of
+ * {@code recent-capacity} entries, which serves recent-traffic queries without the database, and
+ * published to live {@link RequestLogStream} subscribers.
+ * <p>
+ * With the {@code SPILL} overflow policy, logs that do not fit in the queue, and batches that
+ * fail while the database is unreachable, are appended to local {@link RequestLogSpill spill files} instead of being
+ * dropped or blocking mocks. Every {@code spill.replay-interval}, once the queue is below half its
+ * capacity, the spilled logs are written to the database in batches and the files removed.
+ * <p>
+ * A batch the database rejects while it is reachable (e.g. a log referencing an endpoint deleted
+ * before the write) is retried without the stale references and then log by log, so one bad log
+ * does not cost the whole batch.
+ * <p>
+ * {@code receivedAt} is stamped on submission. The queue is drained on shutdown, and
+ * {@link #flush()} lets readers that need every log so far (test run evaluation) wait for it.
+ * <p>
+ * Queue depth, lost and spilled logs and the duration of every batch write are exported as
+ * {@code blockmock.request_log.*} metrics.
+ */
+@ApplicationScoped
+public class RequestLogWriter {
+
+    private static final Logger LOG = Logger.getLogger(RequestLogWriter.class);
+
+    public enum IngestionMode {
+        /** Hibernate {@code persist()} with JDBC batching. */
+        PERSIST,
+        /** PostgreSQL {@code COPY ... FROM STDIN}. */
+        COPY
+    }
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    RequestLogStream stream;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "blockmock.request-log.ingestion", defaultValue = "PERSIST")
+    IngestionMode ingestionMode;
+
+    @ConfigProperty(name = "blockmock.request-log.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "blockmock.request-log.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "blockmock.request-log.overflow", defaultValue = "BLOCK")
+    BatchingQueue.OverflowPolicy overflowPolicy;
+
+    @ConfigProperty(name = "blockmock.request-log.sample-rate", defaultValue = "10")
+    int sampleRate;
+
+    @ConfigProperty(name = "blockmock.request-log.flush-timeout", defaultValue = "30s")
+    Duration flushTimeout;
+
+    @ConfigProperty(name = "blockmock.request-log.compress-threshold", defaultValue = "8192")
+    int compressThreshold;
+
+    @ConfigProperty(name = "blockmock.request-log.recent-capacity", defaultValue = "1024")
+    int recentCapacity;
+
+    @ConfigProperty(name = "blockmock.request-log.spill.directory")
+    Optional<String> spillDirectory;
+
+    @ConfigProperty(name = "blockmock.request-log.spill.segment-size", defaultValue = "64M")
+    MemorySize spillSegmentSize;
+
+    @ConfigProperty(name = "blockmock.request-log.spill.max-segments", defaultValue = "16")
+    int spillMaxSegments;
+
+    private BatchingQueue<RequestLog> queue;
+    private RecentLogBuffer recent;
+    private RequestLogSpill spill;
+    private Timer batchWritten;
+    private final AtomicLong rejected = new AtomicLong();
+    private Timer batchFailed;
+
+    @PostConstruct
+    void init() {
+        recent = new RecentLogBuffer(recentCapacity);
+        if (overflowPolicy == BatchingQueue.OverflowPolicy.SPILL) {
+            Path directory = Path.of(spillDirectory.orElse(
+                    Path.of(System.getProperty("java.io.tmpdir"), "blockmock-request-log-spill").toString()));
+            try {
+                spill = new RequestLogSpill(directory, (int) Math.min(Integer.MAX_VALUE, spillSegmentSize.asLongValue()),
+                        spillMaxSegments);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot use request log spill directory " + directory, e);
+            }
+        }
+        queue = new BatchingQueue<>("request-log-writer", queueCapacity, batchSize, overflowPolicy, sampleRate,
+                this::writeBatch, spill != null ? spill::append : requestLog -> false);
+        registerMetrics();
+        queue.start();
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("blockmock.request_log.queue.depth", this, RequestLogWriter::pending)
+                .description("Request logs waiting to be written")
+                .register(registry);
+        Gauge.builder("blockmock.request_log.queue.capacity", this, writer -> writer.queueCapacity)
+                .description("Capacity of the request log queue")
+                .register(registry);
+        functionCounter("blockmock.request_log.dropped", "Request logs dropped or sampled out on overflow",
+                RequestLogWriter::dropped);
+        functionCounter("blockmock.request_log.failed", "Request logs lost to failed writes", RequestLogWriter::failed);
+        functionCounter("blockmock.request_log.spilled", "Request logs spilled to local files",
+                RequestLogWriter::spilled);
+        functionCounter("blockmock.request_log.replayed", "Spilled request logs written to the database",
+                RequestLogWriter::replayed);
+        batchWritten = batchTimer("success");
+        batchFailed = batchTimer("failure");
+    }
+
+    private void functionCounter(String name, String description, ToDoubleFunction<RequestLogWriter> count) {
+        FunctionCounter.builder(name, this, count).description(description).register(registry);
+    }
+
+    private Timer batchTimer(String outcome) {
+        return Timer.builder("blockmock.request_log.batch")
+                .description("Duration of request log batch writes")
+                .tags("ingestion", ingestionMode.name(), "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        LOG.infof("Request log writer started: %s ingestion, capacity %d, batch size %d, overflow policy %s",
+                ingestionMode, queueCapacity, batchSize, overflowPolicy);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (!queue.close(flushTimeout)) {
+            LOG.warnf("Request log writer did not drain within %s; %d logs were not written",
+                    flushTimeout, queue.size());
+        }
+        if (spill != null) {
+            spill.seal();
+        }
+    }
+
+    /** Queues a log for writing. Returns {@code false} if the overflow policy dropped it. */
+    public boolean submit(RequestLog requestLog) {
+        if (requestLog.getReceivedAt() == null) {
+            requestLog.setReceivedAt(LocalDateTime.now());
+        }
+        return queue.offer(requestLog);
+    }
+
+    /** Waits until every log submitted so far has been written (or failed), spilled logs included. */
+    public boolean flush() {
+        boolean flushed = queue.flush(flushTimeout);
+        if (!flushed) {
+            LOG.warnf("Request log flush timed out after %s with %d logs pending", flushTimeout, queue.size());
+        }
+        if (spill != null) {
+            flushed &= replaySpill();
+        }
+        return flushed;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    public long dropped() {
+        return queue.dropped();
+    }
+
+    /** Logs lost to failed writes, including single logs the database rejected. */
+    public long failed() {
+        return queue.failed() + rejected.get();
+    }
+
+    /** Logs written to spill files since startup. */
+    public long spilled() {
+        return spill != null ? spill.spilled() : 0;
+    }
+
+    /** Spilled logs written to the database since startup. */
+    public long replayed() {
+        return spill != null ? spill.replayed() : 0;
+    }
+
+    /** The most recently written logs. */
+    public RecentLogBuffer recent() {
+        return recent;
+    }
+
+    @Scheduled(every = "${blockmock.request-log.spill.replay-interval:5s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledReplay() {
+        if (spill != null && queue.size() < queueCapacity / 2) {
+            replaySpill();
+        }
+    }
+
+    /**
+     * Writes all spilled logs to the database, oldest first. Does nothing while the database is
+     * unreachable, and stops at the first batch the database does not take; the rest is retried
+     * on the next run.
+     *
+     * @return {@code false} if spilled logs remain
+     */
+    synchronized boolean replaySpill() {
+        if (!databaseAvailable()) {
+            return false;
+        }
+        try {
+            spill.replayAll(batchSize, this::writeReplayed);
+            return true;
+        } catch (Exception e) {
+            LOG.warnf("Replaying spilled request logs failed, will retry: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeBatch(List<RequestLog> batch) {
+        List<RecentLog> views = prepare(batch);
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            if (databaseAvailable()) {
+                salvage(batch);
+            } else if (spill != null) {
+                spillFailed(batch, e);
+                return;
+            } else {
+                throw e;
+            }
+        }
+        publish(batch, views);
+    }
+
+    private void writeReplayed(List<RequestLog> batch) {
+        List<RecentLog> views = prepare(batch);
+        clearDeletedReferences(batch);
+        restoreSnapshots(batch);
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            if (!databaseAvailable()) {
+                throw e;
+            }
+            salvage(batch);
+        }
+        publish(batch, views);
+    }
+
+    /**
+     * After a failed write while the database is up, so the batch itself is the problem: typically
+     * a log referencing an endpoint or response deleted before the write. Unsets such references
+     * and retries the batch, then log by log, discarding only the logs the database still rejects.
+     */
+    private void salvage(List<RequestLog> batch) {
+        clearDeletedReferences(batch);
+        batch.forEach(requestLog -> requestLog.id = null);
+        try {
+            write(batch);
+            return;
+        } catch (RuntimeException e) {
+            LOG.warnf("Writing %d request logs failed, retrying one by one: %s", batch.size(), e.getMessage());
+        }
+        for (RequestLog requestLog : batch) {
+            requestLog.id = null;
+            try {
+                write(List.of(requestLog));
+            } catch (RuntimeException e) {
+                requestLog.id = null;
+                rejected.incrementAndGet();
+                LOG.errorf("Discarding a request log the database rejects: %s", e.getMessage());
+            }
+        }
+    }
+
+    /** Takes the views before compression strips the bodies, then compresses. */
+    private List<RecentLog> prepare(List<RequestLog> batch) {
+        List<RecentLog> views = new ArrayList<>(batch.size());
+        for (RequestLog requestLog : batch) {
+            views.add(RecentLog.of(requestLog));
+            BodyCompression.compress(requestLog, compressThreshold);
+        }
+        return views;
+    }
+
+    private void write(List<RequestLog> batch) {
+        long start = System.nanoTime();
+        boolean written = false;
+        try {
+            if (ingestionMode == IngestionMode.COPY) {
+                copyBatch(batch);
+            } else {
+                persistBatch(batch);
+            }
+            written = true;
+        } finally {
+            (written ? batchWritten : batchFailed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Ids are only known after the write. */
+    private void publish(List<RequestLog> batch, List<RecentLog> views) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).id == null) {
+                continue;
+            }
+            RecentLog view = views.get(i).withId(batch.get(i).id);
+            views.set(i, view);
+            recent.add(view);
+        }
+        stream.publish(views.stream().filter(view -> view.id() != null).toList());
+    }
+
+    private void spillFailed(List<RequestLog> batch, RuntimeException cause) {
+        int lost = 0;
+        for (RequestLog requestLog : batch) {
+            if (!spill.append(requestLog)) {
+                lost++;
+            }
+        }
+        LOG.warnf("Writing %d request logs failed (%s); spilled %d to disk, %d lost",
+                batch.size(), cause.getMessage(), batch.size() - lost, lost);
+    }
+
+    /** Endpoints and responses deleted since a log was spilled are unset, as {@code ON DELETE SET NULL} would. */
+    @SuppressWarnings("unchecked")
+    private void clearDeletedReferences(List<RequestLog> batch) {
+        Set<Long> endpointIds = new HashSet<>();
+        Set<Long> responseIds = new HashSet<>();
+        for (RequestLog requestLog : batch) {
+            if (requestLog.getMockEndpoint() != null) {
+                endpointIds.add(requestLog.getMockEndpoint().id);
+            }
+            if (requestLog.getMockResponse() != null) {
+                responseIds.add(requestLog.getMockResponse().id);
+            }
+        }
+        if (endpointIds.isEmpty() && responseIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existingEndpoints = new HashSet<>();
+        Set<Long> existingResponses = new HashSet<>();
+        QuarkusTransaction.requiringNew().run(() -> {
+            if (!endpointIds.isEmpty()) {
+                ((List<Number>) RequestLog.getEntityManager()
+                        .createNativeQuery("SELECT id FROM mock_endpoint WHERE id IN (:ids)")
+                        .setParameter("ids", endpointIds).getResultList())
+                        .forEach(id -> existingEndpoints.add(id.longValue()));
+            }
+            if (!responseIds.isEmpty()) {
+                ((List<Number>) RequestLog.getEntityManager()
+                        .createNativeQuery("SELECT id FROM mock_response WHERE id IN (:ids)")
+                        .setParameter("ids", responseIds).getResultList())
+                        .forEach(id -> existingResponses.add(id.longValue()));
+            }
+        });
+        for (RequestLog requestLog : batch) {
+            if (requestLog.getMockEndpoint() != null && !existingEndpoints.contains(requestLog.getMockEndpoint().id)) {
+                requestLog.setMockEndpoint(null);
+            }
+            if (requestLog.getMockResponse() != null && !existingResponses.contains(requestLog.getMockResponse().id)) {
+                requestLog.setMockResponse(null);
+            }
+        }
+    }
+
+    /**
+     * Stores the response snapshots the batch references again: spilled logs may be replayed after
+     * retention removed a snapshot no written log referenced yet. Spill files keep the snapshot's
+     * headers and body, so the same hash is re-created; existing ones get a fresh grace period so
+     * that retention cannot remove them before the batch is written.
+     */
+    private void restoreSnapshots(List<RequestLog> batch) {
+        Map<String, ResponseSnapshot> snapshots = new HashMap<>();
+        for (RequestLog requestLog : batch) {
+            String hash = requestLog.getResponseSnapshotHash();
+            if (hash != null) {
+                snapshots.putIfAbsent(hash, new ResponseSnapshot(hash, requestLog.getResponseHeaders(),
+                        requestLog.getResponseBody()));
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (ResponseSnapshot snapshot : snapshots.values()) {
+                RequestLog.getEntityManager().createNativeQuery(ResponseSnapshot.RESTORE_SQL)
+                        .setParameter("hash", snapshot.hash())
+                        .setParameter("headers", snapshot.headersJson())
+                        .setParameter("body", snapshot.body())
+                        .executeUpdate();
+            }
+        });
+    }
+
+    private boolean databaseAvailable() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void persistBatch(List<RequestLog> batch) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Session session = RequestLog.getEntityManager().unwrap(Session.class);
+            session.setJdbcBatchSize(batch.size());
+            for (RequestLog requestLog : batch) {
+                session.persist(requestLog);
+            }
+        });
+    }
+
+    private void copyBatch(List<RequestLog> batch) {
+        try (Connection connection = dataSource.getConnection()) {
+            RequestLogCopyWriter.copy(connection, batch);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY of " + batch.size() + " request logs failed: " + e.getMessage(), e);
+        }
+    }
+}
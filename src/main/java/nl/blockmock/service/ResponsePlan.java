@@ -0,0 +1,226 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import nl.blockmock.domain.MockResponse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Precomputed response selection for one endpoint: its responses sorted by priority (highest
+ * first, ties in their original order) with the matching criteria flattened into arrays.
+ * Built once per route table snapshot, so selecting a response does no sorting and allocates nothing.
+ * <p>
+ * For HTTP, header names are lower-cased up front (request headers arrive lower-cased), query
+ * parameters are matched and body criteria support substring or {@code /pattern/} regex matching.
+ * For AMQP, "headers" are application properties matched case-sensitively, and the body criterion
+ * is always a substring match.
+ * <p>
+ * {@code matchJson} criteria apply to both protocols. Their paths are compiled to JSON Pointers
+ * here and evaluated against the request's shared {@link RequestBody#json() parsed body}.
+ * {@code matchXml} criteria are compiled into an {@link XmlMatcher} that streams the body.
+ * A {@link MatchScript} is checked last, after all cheaper criteria have matched.
+ */
+public final class ResponsePlan {
+
+    public static final ResponsePlan EMPTY = new ResponsePlan(new CompiledResponse[0]);
+
+    private final CompiledResponse[] responses;
+
+    private ResponsePlan(CompiledResponse[] responses) {
+        this.responses = responses;
+    }
+
+    /**
+     * @param compiler returns the compiled pattern for a body regex, or {@code null} if it does not
+     *                 compile; such criteria fall back to literal equality with the whole body
+     * @param scripts  returns the compiled {@code matchScript}, or {@code null} if it does not compile;
+     *                 such responses never match
+     */
+    public static ResponsePlan http(List<MockResponse> responses, Function<String, Pattern> compiler,
+                                    Function<String, MatchScript> scripts) {
+        return build(responses, response -> new CompiledResponse(response, true, compiler, scripts));
+    }
+
+    public static ResponsePlan amqp(List<MockResponse> responses, Function<String, MatchScript> scripts) {
+        return build(responses, response -> new CompiledResponse(response, false, null, scripts));
+    }
+
+    private static ResponsePlan build(List<MockResponse> responses, Function<MockResponse, CompiledResponse> compile) {
+        if (responses.isEmpty()) {
+            return EMPTY;
+        }
+        return new ResponsePlan(responses.stream()
+                .sorted(Comparator.comparingInt((MockResponse r) -> r.getPriority()).reversed())
+                .map(compile)
+                .toArray(CompiledResponse[]::new));
+    }
+
+    /** Same as {@link #select(String, String, Map, Map, RequestBody)} for a request without method or path. */
+    public MockResponse select(Map<String, String> headers, Map<String, String> queryParams, RequestBody body) {
+        return select(null, null, headers, queryParams, body);
+    }
+
+    /**
+     * Returns the highest-priority response whose criteria all match, or {@code null}.
+     * A response with no criteria set matches any request. The request method and path are
+     * only consulted by {@code matchScript} criteria.
+     */
+    public MockResponse select(String method, String path, Map<String, String> headers,
+                               Map<String, String> queryParams, RequestBody body) {
+        for (CompiledResponse response : responses) {
+            if (response.matches(method, path, headers, queryParams, body)) {
+                return response.response;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return responses.length;
+    }
+
+    private enum BodyMode { NONE, CONTAINS, REGEX, EQUALS }
+
+    private static final class CompiledResponse {
+
+        private static final String[] NONE = new String[0];
+        private static final JsonPointer[] NO_POINTERS = new JsonPointer[0];
+
+        final MockResponse response;
+        final String[] headerNames;
+        final String[] headerValues;
+        final String[] queryNames;
+        final String[] queryValues;
+        final BodyMode bodyMode;
+        final String bodyLiteral;
+        final Pattern bodyPattern;
+        final JsonPointer[] jsonPointers;
+        final String[] jsonValues;
+        final XmlMatcher xmlMatcher;
+        final boolean xmlInvalid;
+        final MatchScript script;
+        final boolean scriptInvalid;
+
+        CompiledResponse(MockResponse response, boolean http, Function<String, Pattern> compiler,
+                         Function<String, MatchScript> scripts) {
+            this.response = response;
+
+            Map<String, String> matchHeaders = response.getMatchHeaders() != null ? response.getMatchHeaders() : Map.of();
+            headerNames = new String[matchHeaders.size()];
+            headerValues = new String[matchHeaders.size()];
+            int i = 0;
+            for (Map.Entry<String, String> entry : matchHeaders.entrySet()) {
+                headerNames[i] = http ? entry.getKey().toLowerCase() : entry.getKey();
+                headerValues[i++] = entry.getValue();
+            }
+
+            Map<String, String> matchQuery = http && response.getMatchQueryParams() != null
+                    ? response.getMatchQueryParams() : Map.of();
+            queryNames = matchQuery.isEmpty() ? NONE : new String[matchQuery.size()];
+            queryValues = matchQuery.isEmpty() ? NONE : new String[matchQuery.size()];
+            i = 0;
+            for (Map.Entry<String, String> entry : matchQuery.entrySet()) {
+                queryNames[i] = entry.getKey();
+                queryValues[i++] = entry.getValue();
+            }
+
+            String matchBody = response.getMatchBody();
+            if (matchBody == null || matchBody.isEmpty()) {
+                bodyMode = BodyMode.NONE;
+                bodyPattern = null;
+            } else if (http && MockPatterns.isBodyRegex(matchBody)) {
+                bodyPattern = compiler.apply(MockPatterns.bodyRegex(matchBody));
+                bodyMode = bodyPattern != null ? BodyMode.REGEX : BodyMode.EQUALS;
+            } else {
+                bodyMode = BodyMode.CONTAINS;
+                bodyPattern = null;
+            }
+            bodyLiteral = matchBody;
+
+            Map<String, String> matchJson = response.getMatchJson() != null ? response.getMatchJson() : Map.of();
+            jsonPointers = matchJson.isEmpty() ? NO_POINTERS : new JsonPointer[matchJson.size()];
+            jsonValues = matchJson.isEmpty() ? NONE : new String[matchJson.size()];
+            i = 0;
+            for (Map.Entry<String, String> entry : matchJson.entrySet()) {
+                jsonPointers[i] = compileJsonPath(entry.getKey());
+                jsonValues[i++] = entry.getValue();
+            }
+
+            Map<String, String> matchXml = response.getMatchXml();
+            xmlMatcher = matchXml == null || matchXml.isEmpty() ? null : compileXml(matchXml);
+            xmlInvalid = xmlMatcher == null && matchXml != null && !matchXml.isEmpty();
+
+            String matchScript = response.getMatchScript();
+            script = matchScript == null || matchScript.isBlank() ? null : scripts.apply(matchScript);
+            scriptInvalid = script == null && matchScript != null && !matchScript.isBlank();
+        }
+
+        /** Paths saved before validation existed may not compile; they make the response unmatchable. */
+        private static JsonPointer compileJsonPath(String path) {
+            try {
+                return MockPatterns.jsonPointer(path);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static XmlMatcher compileXml(Map<String, String> matchXml) {
+            try {
+                return XmlMatcher.compile(matchXml);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        boolean matches(String method, String path, Map<String, String> headers,
+                        Map<String, String> queryParams, RequestBody requestBody) {
+            if (headerNames.length > 0) {
+                if (headers == null) {
+                    return false;
+                }
+                for (int i = 0; i < headerNames.length; i++) {
+                    String value = headers.get(headerNames[i]);
+                    if (value == null || !value.equals(headerValues[i])) {
+                        return false;
+                    }
+                }
+            }
+
+            for (int i = 0; i < queryNames.length; i++) {
+                String value = queryParams.get(queryNames[i]);
+                if (value == null || !value.equals(queryValues[i])) {
+                    return false;
+                }
+            }
+
+            String body = requestBody.text();
+            boolean bodyMatches = switch (bodyMode) {
+                case NONE -> true;
+                case CONTAINS -> body != null && body.contains(bodyLiteral);
+                case REGEX -> body != null && bodyPattern.matcher(body).find();
+                case EQUALS -> body != null && body.equals(bodyLiteral);
+            };
+            if (!bodyMatches) {
+                return false;
+            }
+
+            for (int i = 0; i < jsonPointers.length; i++) {
+                if (jsonPointers[i] == null || !jsonValues[i].equals(requestBody.jsonText(jsonPointers[i]))) {
+                    return false;
+                }
+            }
+
+            if (xmlInvalid || scriptInvalid) {
+                return false;
+            }
+            if (xmlMatcher != null && !xmlMatcher.matches(body)) {
+                return false;
+            }
+            return script == null || script.test(method, path, headers, queryParams, requestBody);
+        }
+    }
+}
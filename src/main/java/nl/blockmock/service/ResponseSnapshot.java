@@ -0,0 +1,141 @@
+package nl.blockmock.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.RequestLog;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The headers and body of a {@link MockResponse} as stored once in {@code response_snapshot},
+ * addressed by the SHA-256 of their content. Request logs reference the hash instead of carrying
+ * their own copy of the payload. Snapshots are computed and stored by {@link MockRouteTable}.
+ */
+public record ResponseSnapshot(String hash, Map<String, String> headers, String body) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final String UPSERT_SQL = "INSERT INTO response_snapshot (hash, headers, body) "
+            + "VALUES (:hash, CAST(:headers AS jsonb), :body) ON CONFLICT (hash) DO NOTHING";
+
+    /** Like {@link #UPSERT_SQL}, but restarts the retention grace period of an existing snapshot. */
+    static final String RESTORE_SQL = "INSERT INTO response_snapshot (hash, headers, body) "
+            + "VALUES (:hash, CAST(:headers AS jsonb), :body) "
+            + "ON CONFLICT (hash) DO UPDATE SET created_at = CURRENT_TIMESTAMP";
+
+    private static final String SELECT_SQL = "SELECT hash, CAST(headers AS text), body FROM response_snapshot "
+            + "WHERE hash IN (:hashes)";
+
+    static ResponseSnapshot of(MockResponse response) {
+        String headersJson = headersJson(response.getResponseHeaders());
+        String body = response.getResponseBody();
+        return new ResponseSnapshot(hash(headersJson, body), response.getResponseHeaders(), body);
+    }
+
+    /**
+     * Sets the response headers and body of logs that reference a stored snapshot, which are not
+     * loaded with the logs, reading all snapshots of {@code logs} in one query.
+     */
+    static void resolve(List<RequestLog> logs) {
+        Set<String> hashes = new HashSet<>();
+        for (RequestLog log : logs) {
+            if (log.getResponseSnapshotHash() != null) {
+                hashes.add(log.getResponseSnapshotHash());
+            }
+        }
+        if (!hashes.isEmpty()) {
+            apply(logs, findAll(hashes));
+        }
+    }
+
+    /** Makes each log that references one of {@code snapshots} carry its headers and body. */
+    static void apply(List<RequestLog> logs, Map<String, ResponseSnapshot> snapshots) {
+        for (RequestLog log : logs) {
+            ResponseSnapshot snapshot = log.getResponseSnapshotHash() != null
+                    ? snapshots.get(log.getResponseSnapshotHash()) : null;
+            if (snapshot != null) {
+                snapshot.applyTo(log);
+            }
+        }
+    }
+
+    /** Reads stored snapshots by hash; hashes without a snapshot are absent from the result. */
+    static Map<String, ResponseSnapshot> findAll(Collection<String> hashes) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = RequestLog.getEntityManager().createNativeQuery(SELECT_SQL)
+                .setParameter("hashes", hashes)
+                .getResultList();
+        Map<String, ResponseSnapshot> snapshots = new HashMap<>();
+        for (Object[] row : rows) {
+            String hash = (String) row[0];
+            snapshots.put(hash, new ResponseSnapshot(hash, parseHeaders((String) row[1]), (String) row[2]));
+        }
+        return snapshots;
+    }
+
+    /** Makes {@code log} reference this snapshot. */
+    public void applyTo(RequestLog log) {
+        log.setResponseSnapshot(hash, headers, body);
+    }
+
+    String headersJson() {
+        return headersJson(headers);
+    }
+
+    /** Headers sorted by name, so that equal maps always serialize (and hash) the same. */
+    static String headersJson(Map<String, String> headers) {
+        if (headers == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(new TreeMap<>(headers));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response headers", e);
+        }
+    }
+
+    private static Map<String, String> parseHeaders(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot parse stored response headers", e);
+        }
+    }
+
+    static String hash(String headersJson, String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Length-prefixed, so that null and empty parts and their boundary are unambiguous
+            update(digest, headersJson);
+            update(digest, body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        if (part == null) {
+            digest.update("-1:".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+    }
+}
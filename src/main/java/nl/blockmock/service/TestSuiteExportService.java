@@ -24,6 +24,9 @@ public class TestSuiteExportService {
     @Inject
     BlockService blockService;
 
+    @Inject
+    MockRouteTable mockRouteTable;
+
     // -------------------------------------------------------------------------
     // Export
     // -------------------------------------------------------------------------
@@ -130,7 +133,7 @@ public class TestSuiteExportService {
                         r.getName(), r.getPriority(), r.getResponseStatusCode(),
                         r.getResponseBody(), r.getResponseDelayMs(),
                         r.getMatchBody(), r.getMatchHeaders(), r.getMatchQueryParams(),
-                        r.getResponseHeaders()
+                        r.getResponseHeaders(), r.getMatchJson(), r.getMatchXml(), r.getMatchScript()
                 )).toList();
 
         if (ep instanceof HttpMockEndpoint http) {
@@ -140,7 +143,8 @@ public class TestSuiteExportService {
                     http.getHttpMethod().name(), http.getHttpPath(),
                     Boolean.TRUE.equals(http.getHttpPathRegex()),
                     null, null, null,
-                    http.getPattern().name(), responses
+                    http.getPattern().name(), responses,
+                    captureLevel(http), http.getCaptureSamplePercent()
             );
         }
         if (ep instanceof AmqpMockEndpoint amqp) {
@@ -151,16 +155,22 @@ public class TestSuiteExportService {
                     amqp.getAmqpAddress(),
                     amqp.getAmqpPattern(),
                     amqp.getAmqpRoutingType(),
-                    amqp.getPattern().name(), responses
+                    amqp.getPattern().name(), responses,
+                    captureLevel(amqp), amqp.getCaptureSamplePercent()
             );
         }
         return new TestSuiteExport.EndpointExport(
                 ep.getName(), ep.getDescription(),
                 null, null, null, false, null, null, null,
-                ep.getPattern().name(), responses
+                ep.getPattern().name(), responses,
+                captureLevel(ep), ep.getCaptureSamplePercent()
         );
     }
 
+    private static String captureLevel(MockEndpoint ep) {
+        return ep.getCaptureLevel() != null ? ep.getCaptureLevel().name() : null;
+    }
+
     // -------------------------------------------------------------------------
     // Import
     // -------------------------------------------------------------------------
@@ -314,6 +324,8 @@ public class TestSuiteExportService {
             }
         }
 
+        mockRouteTable.invalidate();
+
         result.suiteName = suite.getName();
         result.suiteId = suite.id;
         return result;
@@ -338,6 +350,13 @@ public class TestSuiteExportService {
                 HttpMethod.valueOf(method), path).firstResult();
     }
 
+    private static void applyCapture(MockEndpoint ep, TestSuiteExport.EndpointExport epExport) {
+        ep.setCaptureLevel(epExport.captureLevel() != null
+                ? CaptureLevel.valueOf(epExport.captureLevel()) : CaptureLevel.FULL);
+        ep.setCaptureSamplePercent(epExport.captureSamplePercent());
+        RequestCapture.validate(ep);
+    }
+
     private MockEndpoint createEndpoint(TestSuiteExport.EndpointExport epExport) {
         PatternType pattern = PatternType.valueOf(epExport.pattern() != null ? epExport.pattern() : "REQUEST_REPLY");
         List<TestSuiteExport.ResponseExport> responseExports = epExport.responses() != null ? epExport.responses() : List.of();
@@ -352,6 +371,7 @@ public class TestSuiteExportService {
             ep.setAmqpAddress(epExport.amqpAddress());
             ep.setAmqpPattern(epExport.amqpPattern());
             ep.setAmqpRoutingType(epExport.amqpRoutingType() != null ? epExport.amqpRoutingType() : "ANYCAST");
+            applyCapture(ep, epExport);
             ep.persist();
             return ep;
         }
@@ -365,6 +385,7 @@ public class TestSuiteExportService {
         ep.setHttpMethod(HttpMethod.valueOf(epExport.httpMethod()));
         ep.setHttpPath(epExport.httpPath());
         ep.setHttpPathRegex(epExport.httpPathRegex());
+        applyCapture(ep, epExport);
         for (TestSuiteExport.ResponseExport rExport : responseExports) {
             MockResponse response = new MockResponse();
             response.setName(rExport.name());
@@ -376,8 +397,12 @@ public class TestSuiteExportService {
             response.setMatchHeaders(rExport.matchHeaders());
             response.setMatchQueryParams(rExport.matchQueryParams());
             response.setResponseHeaders(rExport.responseHeaders());
+            response.setMatchJson(rExport.matchJson());
+            response.setMatchXml(rExport.matchXml());
+            response.setMatchScript(rExport.matchScript());
             ep.addResponse(response);
         }
+        MockPatterns.validate(ep);
         ep.persist();
         return ep;
     }
@@ -402,14 +427,16 @@ public class TestSuiteExportService {
                 String httpMethod, String httpPath, boolean httpPathRegex,
                 String amqpAddress, String amqpPattern, String amqpRoutingType,
                 String pattern,
-                List<ResponseExport> responses
+                List<ResponseExport> responses,
+                String captureLevel, Integer captureSamplePercent
         ) {}
 
         public record ResponseExport(
                 String name, Integer priority, Integer responseStatusCode,
                 String responseBody, Integer responseDelayMs,
                 String matchBody, Map<String, String> matchHeaders,
-                Map<String, String> matchQueryParams, Map<String, String> responseHeaders
+                Map<String, String> matchQueryParams, Map<String, String> responseHeaders,
+                Map<String, String> matchJson, Map<String, String> matchXml, String matchScript
         ) {}
 
         public record BlockExport(String name, String description, String color, List<String> endpointKeys) {}
@@ -25,6 +25,9 @@ public class TestSuiteService {
     @Inject
     RequestLogService requestLogService;
 
+    @Inject
+    MockRouteTable mockRouteTable;
+
     // -------------------------------------------------------------------------
     // Suite CRUD
     // -------------------------------------------------------------------------
@@ -214,6 +217,8 @@ public class TestSuiteService {
             throw new IllegalStateException("TestRun is not in RUNNING state");
 
         run.setCompletedAt(LocalDateTime.now());
+        // Request logs are written asynchronously; make sure the run's traffic is in the database
+        requestLogService.flush();
 
         TestScenario scenario = run.getTestScenario();
         Map<Long, List<RequestLog>> logsByExpId = new HashMap<>();
@@ -322,7 +327,11 @@ public class TestSuiteService {
         if (exp.getRequiredBodyContains() != null && !exp.getRequiredBodyContains().isEmpty()) {
             String required = exp.getRequiredBodyContains();
             logs = logs.stream()
-                .filter(l -> l.getRequestBody() != null && l.getRequestBody().contains(required))
+                .filter(l -> {
+                    // Compressed bodies are only loaded and inflated for these candidates
+                    String body = BodyCompression.requestBody(l);
+                    return body != null && body.contains(required);
+                })
                 .toList();
         }
         if (exp.getRequiredHeaders() != null && !exp.getRequiredHeaders().isEmpty()) {
@@ -458,6 +467,7 @@ public class TestSuiteService {
                 ep.persist();
             }
         }
+        mockRouteTable.invalidate();
     }
 
     private void clearResponseOverrides(TestScenario scenario) {
@@ -470,6 +480,7 @@ public class TestSuiteService {
                 }
             }
         }
+        mockRouteTable.invalidate();
     }
 
     private void stopBlocksIfNoActiveRuns(TestScenario scenario, Long excludeRunId) {
@@ -9,6 +9,7 @@ import jakarta.transaction.Transactional;
 import nl.blockmock.domain.AmqpTriggerConfig;
 import nl.blockmock.domain.CronTriggerConfig;
 import nl.blockmock.domain.HttpTriggerConfig;
+import nl.blockmock.domain.ProtocolType;
 import nl.blockmock.domain.TestScenario;
 import nl.blockmock.domain.TriggerConfig;
 import org.jboss.logging.Logger;
@@ -24,7 +25,8 @@ import java.util.Map;
 /**
  * CRUD, scheduling, and execution of triggers. Cron triggers are registered with the
  * Quarkus scheduler on create/update and unregistered on delete or disable.
- * HTTP, CRON, and AMQP trigger types are each executed differently via {@link #fire}.
+ * HTTP, CRON, and AMQP trigger types are each executed differently via {@link #fire}; the
+ * duration of outbound calls and publishes is recorded in {@link MockMetrics}.
  */
 @ApplicationScoped
 public class TriggerService {
@@ -37,6 +39,9 @@ public class TriggerService {
     @Inject
     AmqpConnectionService amqpConnectionService;
 
+    @Inject
+    MockMetrics mockMetrics;
+
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     void onStart(@Observes StartupEvent event) {
@@ -163,6 +168,7 @@ public class TriggerService {
         String error = null;
         String messageId = null;
 
+        long start = System.nanoTime();
         if (trigger instanceof HttpTriggerConfig http && http.getHttpUrl() != null) {
             try {
                 HttpRequest.Builder builder = HttpRequest.newBuilder()
@@ -196,6 +202,7 @@ public class TriggerService {
                 error = cause.getClass().getSimpleName() + ": " + (cause.getMessage() != null ? cause.getMessage() : e.getClass().getSimpleName());
                 LOG.warnf("Trigger %s HTTP call failed: %s", trigger.getName(), error);
             }
+            mockMetrics.triggerFired(ProtocolType.HTTP, error == null, System.nanoTime() - start);
         } else if (trigger instanceof AmqpTriggerConfig amqp) {
             try {
                 messageId = amqpConnectionService.publish(
@@ -204,9 +211,11 @@ public class TriggerService {
                         amqp.getAmqpProperties(),
                         amqp.getAmqpRoutingType()
                 );
+                mockMetrics.triggerFired(ProtocolType.AMQP, true, System.nanoTime() - start);
                 LOG.infof("Trigger %s fired AMQP message to: %s (id: %s)",
                         trigger.getName(), amqp.getAmqpAddress(), messageId);
             } catch (Exception e) {
+                mockMetrics.triggerFired(ProtocolType.AMQP, false, System.nanoTime() - start);
                 error = e.getMessage();
                 LOG.warnf("Trigger %s AMQP publish failed: %s", trigger.getName(), error);
             }
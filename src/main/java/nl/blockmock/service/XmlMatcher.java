@@ -0,0 +1,240 @@
+package nl.blockmock.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled {@code matchXml} criteria of a mock response, evaluated with a streaming StAX reader
+ * instead of a DOM. Each key is an XPath subset: absolute ({@code /Envelope/Body/GetOrder/id}) or
+ * descendant ({@code //GetOrder//id}) steps, {@code *} for any element, and an optional final
+ * {@code @attribute} or {@code text()}. Steps match local names, so namespace prefixes in paths and
+ * documents are ignored.
+ * <p>
+ * A criterion compares the trimmed text content (or attribute value) of the <em>first</em> element
+ * its path selects. Reading stops as soon as the outcome is known: on the first mismatch, or once
+ * every criterion has been satisfied. DTDs and external entities are disabled.
+ */
+public final class XmlMatcher {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final Criterion[] criteria;
+
+    private XmlMatcher(Criterion[] criteria) {
+        this.criteria = criteria;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a path is not in the supported subset
+     */
+    public static XmlMatcher compile(Map<String, String> matchXml) {
+        Criterion[] criteria = new Criterion[matchXml.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : matchXml.entrySet()) {
+            criteria[i++] = new Criterion(entry.getKey(), entry.getValue());
+        }
+        return new XmlMatcher(criteria);
+    }
+
+    /** Returns true if {@code body} is well-formed up to the point of decision and every criterion matches. */
+    public boolean matches(String body) {
+        if (body == null || body.isBlank()) {
+            return false;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(new StringReader(body));
+            return evaluate(reader);
+        } catch (XMLStreamException e) {
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+    }
+
+    private boolean evaluate(XMLStreamReader reader) throws XMLStreamException {
+        // Per-criterion state: the depth at which text is being captured (0 = not capturing)
+        int[] captureDepth = new int[criteria.length];
+        StringBuilder[] text = new StringBuilder[criteria.length];
+        boolean[] resolved = new boolean[criteria.length];
+        int unresolved = criteria.length;
+
+        String[] path = new String[16];
+        int depth = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    if (depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                    }
+                    path[depth++] = reader.getLocalName();
+                    for (int i = 0; i < criteria.length; i++) {
+                        Criterion criterion = criteria[i];
+                        if (resolved[i] || captureDepth[i] != 0 || !criterion.selects(path, depth)) {
+                            continue;
+                        }
+                        if (criterion.attribute != null) {
+                            if (!criterion.expected.equals(attribute(reader, criterion.attribute))) {
+                                return false;
+                            }
+                            resolved[i] = true;
+                            if (--unresolved == 0) {
+                                return true;
+                            }
+                        } else {
+                            captureDepth[i] = depth;
+                            text[i] = new StringBuilder();
+                        }
+                    }
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    for (int i = 0; i < criteria.length; i++) {
+                        if (captureDepth[i] != 0) {
+                            text[i].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    for (int i = 0; i < criteria.length; i++) {
+                        if (captureDepth[i] == depth) {
+                            if (!criteria[i].expected.equals(text[i].toString().trim())) {
+                                return false;
+                            }
+                            captureDepth[i] = 0;
+                            text[i] = null;
+                            resolved[i] = true;
+                            if (--unresolved == 0) {
+                                return true;
+                            }
+                        }
+                    }
+                    depth--;
+                }
+                default -> {
+                }
+            }
+        }
+        return unresolved == 0;
+    }
+
+    private static String attribute(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (reader.getAttributeLocalName(i).equals(localName)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /** One compiled path: element steps (each possibly preceded by {@code //}) plus an optional attribute. */
+    private static final class Criterion {
+
+        final String[] steps;
+        final boolean[] descendant;
+        final String attribute;
+        final String expected;
+
+        Criterion(String xpath, String expected) {
+            if (xpath == null || !xpath.startsWith("/")) {
+                throw new IllegalArgumentException("XML path must start with '/' or '//': '" + xpath + "'");
+            }
+            if (expected == null) {
+                throw new IllegalArgumentException("Expected value of XML path '" + xpath + "' must not be null");
+            }
+            List<String> stepList = new ArrayList<>();
+            List<Boolean> descendantList = new ArrayList<>();
+            String attr = null;
+            int i = 0;
+            while (i < xpath.length()) {
+                if (attr != null) {
+                    throw new IllegalArgumentException("Attribute must be the last step of XML path '" + xpath + "'");
+                }
+                boolean anyDepth = xpath.startsWith("//", i);
+                i += anyDepth ? 2 : 1;
+                int end = xpath.indexOf('/', i);
+                String step = xpath.substring(i, end < 0 ? xpath.length() : end);
+                i = end < 0 ? xpath.length() : end;
+
+                if (step.equals("text()") && i == xpath.length() && !anyDepth && !stepList.isEmpty()) {
+                    break;
+                }
+                if (step.startsWith("@") && !anyDepth && !stepList.isEmpty()) {
+                    attr = localName(step.substring(1), xpath);
+                    continue;
+                }
+                stepList.add(step.equals("*") ? "*" : localName(step, xpath));
+                descendantList.add(anyDepth);
+            }
+            if (stepList.isEmpty()) {
+                throw new IllegalArgumentException("XML path selects no element: '" + xpath + "'");
+            }
+            this.steps = stepList.toArray(new String[0]);
+            this.descendant = new boolean[steps.length];
+            for (int s = 0; s < steps.length; s++) {
+                descendant[s] = descendantList.get(s);
+            }
+            this.attribute = attr;
+            this.expected = expected;
+        }
+
+        private static String localName(String step, String xpath) {
+            int colon = step.indexOf(':');
+            String name = colon >= 0 ? step.substring(colon + 1) : step;
+            boolean valid = !name.isEmpty() && name.chars()
+                    .allMatch(c -> Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.');
+            if (!valid) {
+                throw new IllegalArgumentException("Unsupported XML path step '" + step + "' in '" + xpath + "'");
+            }
+            return name;
+        }
+
+        /** Returns true if the element path {@code path[0..depth)} is selected by this criterion. */
+        boolean selects(String[] path, int depth) {
+            return selects(path, depth, 0, 0);
+        }
+
+        private boolean selects(String[] path, int depth, int step, int level) {
+            if (step == steps.length) {
+                return level == depth;
+            }
+            if (level == depth) {
+                return false;
+            }
+            if (descendant[step]) {
+                // The last step must land on the current element, so only try levels that can still get there
+                for (int l = level; l <= depth - (steps.length - step); l++) {
+                    if (stepMatches(step, path[l]) && selects(path, depth, step + 1, l + 1)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return stepMatches(step, path[level]) && selects(path, depth, step + 1, level + 1);
+        }
+
+        private boolean stepMatches(int step, String name) {
+            return steps[step].equals("*") || steps[step].equals(name);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Keyset pagination on (received_at, id), over all logs and per endpoint; the
+-- composite indexes supersede the single-column ones
+DROP INDEX IF EXISTS idx_request_log_received_at;
+DROP INDEX IF EXISTS idx_request_log_endpoint;
+
+CREATE INDEX idx_request_log_received_at_id ON request_log(received_at DESC, id DESC);
+CREATE INDEX idx_request_log_endpoint_received_at ON request_log(mock_endpoint_id, received_at DESC, id DESC);
@@ -0,0 +1,10 @@
+-- Substring search over logged requests (RequestLogSearch): trigram GIN indexes
+-- serve ILIKE '%term%' on the body, the path and the text of the JSONB columns.
+-- The JSONB expressions must stay in sync with the search query.
+-- Bodies stored compressed (V8) are not indexed and so not searchable.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_request_log_body_trgm       ON request_log USING gin (request_body gin_trgm_ops);
+CREATE INDEX idx_request_log_path_trgm       ON request_log USING gin (request_path gin_trgm_ops);
+CREATE INDEX idx_request_log_headers_trgm    ON request_log USING gin ((request_headers::text) gin_trgm_ops);
+CREATE INDEX idx_request_log_properties_trgm ON request_log USING gin ((amqp_properties::text) gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- Bodies stored compressed (V8) cannot be searched (V11); RequestLogSearch counts
+-- the logs it skipped for that reason, which this partial index keeps cheap
+CREATE INDEX idx_request_log_compressed_body ON request_log(received_at DESC) WHERE request_body_compressed IS NOT NULL;
@@ -0,0 +1,3 @@
+-- Structured body matching: JSON Pointer (or simple $.path) → expected value
+ALTER TABLE mock_response
+    ADD COLUMN IF NOT EXISTS match_json JSONB;
@@ -0,0 +1,3 @@
+-- Streaming XML body matching: XPath subset → expected text
+ALTER TABLE mock_response
+    ADD COLUMN IF NOT EXISTS match_xml JSONB;
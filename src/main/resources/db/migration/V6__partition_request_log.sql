@@ -0,0 +1,75 @@
+-- =============================================================================
+-- request_log: range-partitioned by received_at, one partition per day
+-- =============================================================================
+-- Retention drops whole partitions instead of deleting rows. Daily partitions
+-- (request_log_pYYYYMMDD) are created ahead of time and dropped when expired by
+-- RequestLogPartitionService; rows outside every daily range land in
+-- request_log_default. The primary key must include the partition key.
+-- Ids keep coming from request_log_SEQ (assigned by the application).
+
+ALTER TABLE request_log RENAME TO request_log_old;
+ALTER TABLE request_log_old RENAME CONSTRAINT request_log_pkey TO request_log_old_pkey;
+DROP INDEX IF EXISTS idx_request_log_endpoint;
+DROP INDEX IF EXISTS idx_request_log_received_at;
+DROP INDEX IF EXISTS idx_request_log_matched;
+
+CREATE TABLE request_log (
+    id                   BIGINT NOT NULL,
+    mock_endpoint_id     BIGINT REFERENCES mock_endpoint(id) ON DELETE SET NULL,
+    mock_response_id     BIGINT REFERENCES mock_response(id) ON DELETE SET NULL,
+    protocol             VARCHAR(50) NOT NULL,
+    request_method       VARCHAR(50),
+    request_path         VARCHAR(1000),
+    request_headers      JSONB,
+    request_query_params JSONB,
+    request_body         TEXT,
+    response_status_code INTEGER,
+    response_headers     JSONB,
+    response_body        TEXT,
+    response_delay_ms    INTEGER,
+    amqp_address         VARCHAR(500),
+    amqp_subject         VARCHAR(500),
+    amqp_message_id      VARCHAR(500),
+    amqp_correlation_id  VARCHAR(500),
+    amqp_reply_to        VARCHAR(500),
+    amqp_properties      JSONB,
+    matched              BOOLEAN NOT NULL DEFAULT false,
+    client_ip            VARCHAR(45),
+    received_at          TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, received_at)
+) PARTITION BY RANGE (received_at);
+
+CREATE TABLE request_log_default PARTITION OF request_log DEFAULT;
+
+-- Daily partitions for the last 31 days of existing data up to a week ahead;
+-- older rows go to the default partition
+DO $$
+DECLARE
+    day DATE;
+BEGIN
+    SELECT GREATEST(COALESCE(MIN(received_at)::date, CURRENT_DATE), CURRENT_DATE - 31)
+    INTO day FROM request_log_old;
+    WHILE day <= CURRENT_DATE + 7 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF request_log FOR VALUES FROM (%L) TO (%L)',
+                       'request_log_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+        day := day + 1;
+    END LOOP;
+END $$;
+
+INSERT INTO request_log (id, mock_endpoint_id, mock_response_id, protocol, request_method, request_path,
+                         request_headers, request_query_params, request_body, response_status_code,
+                         response_headers, response_body, response_delay_ms, amqp_address, amqp_subject,
+                         amqp_message_id, amqp_correlation_id, amqp_reply_to, amqp_properties, matched,
+                         client_ip, received_at)
+SELECT id, mock_endpoint_id, mock_response_id, protocol, request_method, request_path,
+       request_headers, request_query_params, request_body, response_status_code,
+       response_headers, response_body, response_delay_ms, amqp_address, amqp_subject,
+       amqp_message_id, amqp_correlation_id, amqp_reply_to, amqp_properties, matched,
+       client_ip, received_at
+FROM request_log_old;
+
+DROP TABLE request_log_old;
+
+CREATE INDEX idx_request_log_endpoint    ON request_log(mock_endpoint_id);
+CREATE INDEX idx_request_log_received_at ON request_log(received_at DESC);
+CREATE INDEX idx_request_log_matched     ON request_log(matched);
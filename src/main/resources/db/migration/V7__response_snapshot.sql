@@ -0,0 +1,16 @@
+-- =============================================================================
+-- response_snapshot: matched response payloads stored once, keyed by content hash
+-- =============================================================================
+-- request_log rows of matched requests reference a snapshot instead of copying
+-- the response headers and body. Older rows keep their inline payload.
+
+CREATE TABLE response_snapshot (
+    hash       VARCHAR(64) PRIMARY KEY,   -- hex SHA-256 of headers and body
+    headers    JSONB,
+    body       TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE request_log ADD COLUMN response_snapshot_hash VARCHAR(64);
+
+CREATE INDEX idx_request_log_response_snapshot ON request_log(response_snapshot_hash);
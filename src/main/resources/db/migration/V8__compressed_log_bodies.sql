@@ -0,0 +1,7 @@
+-- Large request/response bodies are stored deflated instead of in the TEXT
+-- columns, with their original length in UTF-8 bytes
+ALTER TABLE request_log
+    ADD COLUMN request_body_compressed  BYTEA,
+    ADD COLUMN request_body_length      INTEGER,
+    ADD COLUMN response_body_compressed BYTEA,
+    ADD COLUMN response_body_length     INTEGER;
@@ -0,0 +1,4 @@
+-- Per-endpoint request log capture level (FULL, HEADERS_ONLY, METADATA_ONLY, COUNT_ONLY, SAMPLED)
+ALTER TABLE mock_endpoint
+    ADD COLUMN capture_level          VARCHAR(50) NOT NULL DEFAULT 'FULL',
+    ADD COLUMN capture_sample_percent INTEGER;
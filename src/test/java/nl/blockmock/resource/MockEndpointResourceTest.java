@@ -56,6 +56,26 @@ class MockEndpointResourceTest {
             .body("httpPath", equalTo("/api/test"));
     }
 
+    @Test
+    void testCreateEndpointWithInvalidPathRegex() {
+        Map<String, Object> endpoint = new HashMap<>();
+        endpoint.put("name", "Broken Regex");
+        endpoint.put("protocol", "HTTP");
+        endpoint.put("pattern", "REQUEST_REPLY");
+        endpoint.put("enabled", true);
+        endpoint.put("httpMethod", "GET");
+        endpoint.put("httpPath", "/api/users/(\\d+");
+        endpoint.put("httpPathRegex", true);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(endpoint)
+        .when()
+            .post("/api/endpoints")
+        .then()
+            .statusCode(400);
+    }
+
     @Test
     void testGetAllEndpoints() {
         createTestEndpoint("Test Endpoint 1");
@@ -0,0 +1,138 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingQueueTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testWritesInOrderAndInBatches() {
+        CountDownLatch release = new CountDownLatch(1);
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 100, 10, BatchingQueue.OverflowPolicy.BLOCK, 1,
+                batch -> {
+                    await(release);
+                    record(batch);
+                });
+        queue.start();
+        for (int i = 0; i < 35; i++) {
+            assertTrue(queue.offer(i));
+        }
+        release.countDown();
+
+        assertTrue(queue.flush(TIMEOUT));
+        assertEquals(35, written.size());
+        for (int i = 0; i < 35; i++) {
+            assertEquals(i, written.get(i));
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(batchSizes.size() < 35, "items should have been batched");
+        assertTrue(queue.close(TIMEOUT));
+    }
+
+    @Test
+    void testDropPolicyWhenFull() {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 4, 10, BatchingQueue.OverflowPolicy.DROP, 1,
+                this::record);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+
+        assertEquals(4, queue.accepted());
+        assertEquals(2, queue.dropped());
+        assertTrue(queue.close(TIMEOUT));
+        assertEquals(List.of(0, 1, 2, 3), written);
+    }
+
+    @Test
+    void testSpillPolicyHandsOverflowToHandler() {
+        List<Integer> spilled = new ArrayList<>();
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 4, 10, BatchingQueue.OverflowPolicy.SPILL, 1,
+                this::record, item -> item < 5 && spilled.add(item));
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 5, queue.offer(i));
+        }
+
+        assertEquals(4, queue.accepted());
+        assertEquals(1, queue.spilled());
+        assertEquals(1, queue.dropped());
+        assertEquals(List.of(4), spilled);
+        assertTrue(queue.close(TIMEOUT));
+        assertEquals(List.of(0, 1, 2, 3), written);
+    }
+
+    @Test
+    void testSamplePolicyKeepsEveryNthItemAboveHalfFull() {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 10, 10, BatchingQueue.OverflowPolicy.SAMPLE, 3,
+                this::record);
+        for (int i = 0; i < 14; i++) {
+            queue.offer(i);
+        }
+
+        // 0-4 fill the queue to half; of 5-13 only every third is kept
+        assertEquals(8, queue.accepted());
+        assertEquals(6, queue.dropped());
+        assertTrue(queue.close(TIMEOUT));
+        assertEquals(List.of(0, 1, 2, 3, 4, 7, 10, 13), written);
+    }
+
+    @Test
+    void testCloseDrainsAndRejectsLaterItems() {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 1000, 7, BatchingQueue.OverflowPolicy.BLOCK, 1,
+                this::record);
+        queue.start();
+        for (int i = 0; i < 500; i++) {
+            queue.offer(i);
+        }
+
+        assertTrue(queue.close(TIMEOUT));
+        assertEquals(500, written.size());
+        assertFalse(queue.offer(500));
+        assertEquals(1, queue.dropped());
+    }
+
+    @Test
+    void testFailingBatchDoesNotStopTheWriter() {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", 100, 1, BatchingQueue.OverflowPolicy.BLOCK, 1,
+                batch -> {
+                    if (batch.get(0) == 1) {
+                        throw new IllegalStateException("database down");
+                    }
+                    record(batch);
+                });
+        queue.start();
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+        }
+
+        assertTrue(queue.flush(TIMEOUT));
+        assertEquals(List.of(0, 2), written);
+        assertEquals(1, queue.failed());
+        assertTrue(queue.close(TIMEOUT));
+    }
+
+    private void record(List<Integer> batch) {
+        batchSizes.add(batch.size());
+        written.addAll(batch);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
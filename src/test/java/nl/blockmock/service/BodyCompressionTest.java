@@ -0,0 +1,62 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BodyCompressionTest {
+
+    @Test
+    void testLargeBodiesAreCompressed() {
+        String body = "{\"lines\":[" + "{\"sku\":\"A-1\",\"qty\":3,\"note\":\"é\"},".repeat(200) + "{}]}";
+        RequestLog log = new RequestLog();
+        log.setRequestBody(body);
+        log.setResponseBody(body);
+
+        BodyCompression.compress(log, 1024);
+
+        assertNull(log.getRequestBody());
+        assertNull(log.getResponseBody());
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length, log.getRequestBodyLength());
+        assertTrue(log.getRequestBodyCompressed().length < body.length());
+        assertEquals(body, BodyCompression.requestBody(log));
+        assertEquals(body, BodyCompression.responseBody(log));
+    }
+
+    @Test
+    void testSmallBodiesStayInline() {
+        RequestLog log = new RequestLog();
+        log.setRequestBody("{\"id\":1}");
+
+        BodyCompression.compress(log, 1024);
+
+        assertEquals("{\"id\":1}", log.getRequestBody());
+        assertNull(log.getRequestBodyCompressed());
+        assertEquals("{\"id\":1}", BodyCompression.requestBody(log));
+    }
+
+    @Test
+    void testSnapshotPayloadIsLeftAlone() {
+        RequestLog log = new RequestLog();
+        log.setResponseSnapshot("ab12", Map.of(), "x".repeat(5000));
+
+        BodyCompression.compress(log, 1024);
+
+        assertNull(log.getResponseBodyCompressed());
+        assertEquals(5000, log.getResponseBody().length());
+    }
+
+    @Test
+    void testDisabledWithZeroThreshold() {
+        RequestLog log = new RequestLog();
+        log.setRequestBody("x".repeat(5000));
+
+        BodyCompression.compress(log, 0);
+
+        assertNull(log.getRequestBodyCompressed());
+    }
+}
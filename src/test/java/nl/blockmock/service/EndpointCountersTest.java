@@ -0,0 +1,84 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointCountersTest {
+
+    @Test
+    void testDrainTakesCountsOnce() {
+        EndpointCounters counters = new EndpointCounters();
+        counters.record(1L, true);
+        counters.record(1L, true);
+        counters.record(1L, false);
+        counters.record(2L, true);
+        counters.record(null, true);
+
+        List<EndpointCounters.Delta> deltas = counters.drain();
+
+        assertEquals(2, deltas.size());
+        EndpointCounters.Delta first = deltas.stream().filter(d -> d.endpointId() == 1L).findFirst().orElseThrow();
+        assertEquals(2, first.matched());
+        assertEquals(1, first.unmatched());
+        assertTrue(first.lastRequestAt() > 0);
+        assertTrue(counters.drain().isEmpty());
+    }
+
+    @Test
+    void testForgottenEndpointIsNotDrained() {
+        EndpointCounters counters = new EndpointCounters();
+        counters.record(1L, true);
+        counters.record(2L, true);
+
+        counters.forget(1L);
+
+        List<EndpointCounters.Delta> deltas = counters.drain();
+        assertEquals(1, deltas.size());
+        assertEquals(2L, deltas.get(0).endpointId());
+    }
+
+    @Test
+    void testRestoredCountsAreDrainedAgain() {
+        EndpointCounters counters = new EndpointCounters();
+        counters.record(1L, true);
+        List<EndpointCounters.Delta> failed = counters.drain();
+        counters.record(1L, true);
+
+        counters.restore(failed);
+
+        assertEquals(List.of(2L), counters.drain().stream().map(EndpointCounters.Delta::matched).toList());
+    }
+
+    @Test
+    void testNoCountsLostUnderConcurrentDrains() throws InterruptedException {
+        EndpointCounters counters = new EndpointCounters();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counters.record(1L, true);
+                }
+                done.countDown();
+            });
+        }
+        long drained = 0;
+        while (done.getCount() > 0) {
+            drained += counters.drain().stream().mapToLong(EndpointCounters.Delta::matched).sum();
+        }
+        drained += counters.drain().stream().mapToLong(EndpointCounters.Delta::matched).sum();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals((long) threads * perThread, drained);
+    }
+}
@@ -0,0 +1,133 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRouterTest {
+
+    private final List<MockRouteTable.HttpRoute> routes = new ArrayList<>();
+
+    @Test
+    void testExactPathMatch() {
+        addRoute(HttpMethod.GET, "/api/users", false, "users");
+        addRoute(HttpMethod.GET, "/api/users/1", false, "user-1");
+        addRoute(HttpMethod.GET, "/api/orders", false, "orders");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("users", find(router, "GET", "/api/users"));
+        assertEquals("user-1", find(router, "GET", "/api/users/1"));
+        assertEquals("orders", find(router, "GET", "/api/orders"));
+        assertNull(find(router, "GET", "/api/user"));
+        assertNull(find(router, "GET", "/api/users/"));
+        assertNull(find(router, "GET", "/api/users/12"));
+        assertNull(find(router, "GET", "/"));
+    }
+
+    @Test
+    void testMethodIsPartOfTheKey() {
+        addRoute(HttpMethod.GET, "/api/users", false, "get");
+        addRoute(HttpMethod.POST, "/api/users", false, "post");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("get", find(router, "GET", "/api/users"));
+        assertEquals("post", find(router, "post", "/api/users"));
+        assertNull(find(router, "PUT", "/api/users"));
+        assertNull(find(router, "TRACE", "/api/users"));
+    }
+
+    @Test
+    void testRegexFallback() {
+        addRoute(HttpMethod.GET, "/api/users/\\d+", true, "user-by-id");
+        addRoute(HttpMethod.GET, "/api/users/me", false, "me");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("user-by-id", find(router, "GET", "/api/users/42"));
+        assertEquals("me", find(router, "GET", "/api/users/me"));
+        assertNull(find(router, "GET", "/api/users/abc"));
+    }
+
+    @Test
+    void testFirstMatchOrderAcrossExactAndRegex() {
+        addRoute(HttpMethod.GET, "/api/.*", true, "catch-all");
+        addRoute(HttpMethod.GET, "/api/users", false, "users");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("catch-all", find(router, "GET", "/api/users"));
+    }
+
+    @Test
+    void testRegexRoutesArePartitionedByLiteralPrefix() {
+        addRoute(HttpMethod.GET, "/api/orders/\\d+", true, "order");
+        addRoute(HttpMethod.GET, "/api/users/\\d+", true, "user");
+        addRoute(HttpMethod.GET, "/api/users/\\d+/orders", true, "user-orders");
+        addRoute(HttpMethod.GET, ".*/health", true, "health");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("order", find(router, "GET", "/api/orders/7"));
+        assertEquals("user", find(router, "GET", "/api/users/7"));
+        assertEquals("user-orders", find(router, "GET", "/api/users/7/orders"));
+        assertEquals("health", find(router, "GET", "/api/users/health"));
+        assertEquals("health", find(router, "GET", "/health"));
+        assertNull(find(router, "GET", "/api/products/7"));
+        assertNull(find(router, "GET", "/api"));
+    }
+
+    @Test
+    void testRegexPrecedenceFollowsRouteOrder() {
+        addRoute(HttpMethod.GET, ".*", true, "any");
+        addRoute(HttpMethod.GET, "/api/users/\\d+", true, "user");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("any", find(router, "GET", "/api/users/7"));
+    }
+
+    @Test
+    void testFallsThroughWhenNoResponseMatches() {
+        addRoute(HttpMethod.GET, "/api/users", false, null);
+        addRoute(HttpMethod.GET, "/api/users", false, "second");
+        addRoute(HttpMethod.GET, "/api/.*", true, "regex");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertEquals("second", find(router, "GET", "/api/users"));
+    }
+
+    @Test
+    void testEndpointsWithoutMethodOrPathAreIgnored() {
+        addRoute(null, "/api/users", false, "no-method");
+        addRoute(HttpMethod.GET, null, false, "no-path");
+        HttpRouter router = new HttpRouter(routes);
+
+        assertNull(find(router, "GET", "/api/users"));
+    }
+
+    private String find(HttpRouter router, String method, String path) {
+        HttpRouter.Match match = router.find(method, path,
+                route -> route.responses().select(Map.of(), Map.of(), new RequestBody(null)));
+        return match != null ? match.response().getName() : null;
+    }
+
+    private void addRoute(HttpMethod method, String path, boolean regex, String responseName) {
+        HttpMockEndpoint endpoint = new HttpMockEndpoint();
+        endpoint.setProtocol(ProtocolType.HTTP);
+        endpoint.setHttpMethod(method);
+        endpoint.setHttpPath(path);
+        endpoint.setHttpPathRegex(regex);
+
+        List<MockResponse> responses = new ArrayList<>();
+        if (responseName != null) {
+            MockResponse response = new MockResponse();
+            response.setName(responseName);
+            responses.add(response);
+        }
+        Pattern pathPattern = regex ? Pattern.compile(path) : null;
+        routes.add(new MockRouteTable.HttpRoute(routes.size(), endpoint, pathPattern, null,
+                ResponsePlan.http(responses, Pattern::compile, MatchScript::compile)));
+    }
+}
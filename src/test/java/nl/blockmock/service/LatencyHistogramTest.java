@@ -0,0 +1,67 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long NOW = 1_000 * MINUTE + 30_000;
+
+    @Test
+    void testBucketsCoverEveryValueWithBoundedError() {
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value += 1 + value / 50) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index >= previous, "buckets must be monotonic");
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= Math.max(1, value / (LatencyHistogram.SUB_BUCKETS / 2)),
+                    "value " + value + " reported as " + highest);
+            previous = index;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000L, NOW);
+        }
+
+        EndpointLatency.Percentiles percentiles = histogram.percentiles(1, NOW);
+
+        assertEquals(1000, percentiles.count());
+        assertEquals(500, percentiles.p50(), 500 * 0.04);
+        assertEquals(900, percentiles.p90(), 900 * 0.04);
+        assertEquals(990, percentiles.p99(), 990 * 0.04);
+        assertEquals(1000, percentiles.max());
+        assertTrue(percentiles.p999() <= percentiles.max());
+    }
+
+    @Test
+    void testWindowsOnlyMergeRecentMinutes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000, NOW - 10 * MINUTE);
+        histogram.record(2_000, NOW - 3 * MINUTE);
+        histogram.record(3_000, NOW);
+
+        assertEquals(1, histogram.percentiles(1, NOW).count());
+        assertEquals(2, histogram.percentiles(5, NOW).count());
+        assertEquals(3, histogram.percentiles(15, NOW).count());
+        assertEquals(3.0, histogram.percentiles(15, NOW).max());
+        // Slices from before the longest window are ignored
+        assertEquals(0, histogram.percentiles(15, NOW + 30 * MINUTE).count());
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentiles(16, NOW));
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        EndpointLatency.Percentiles percentiles = new LatencyHistogram().percentiles(5, NOW);
+
+        assertEquals(0, percentiles.count());
+        assertEquals(0, percentiles.max());
+    }
+}
@@ -0,0 +1,73 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchScriptTest {
+
+    private static final String ORDER = "{\"order\":{\"total\":150.5,\"items\":[{\"sku\":\"A-1\"}]},\"vip\":true}";
+
+    @Test
+    void testRequestLineHeadersAndQuery() {
+        MatchScript script = MatchScript.compile(
+                "method == 'POST' && path startsWith '/api/orders' && headers['X-Tenant'] == 'acme' && !query.dryRun");
+
+        assertTrue(test(script, "POST", "/api/orders/7", Map.of("x-tenant", "acme"), Map.of(), null));
+        assertFalse(test(script, "GET", "/api/orders/7", Map.of("x-tenant", "acme"), Map.of(), null));
+        assertFalse(test(script, "POST", "/api/orders/7", Map.of("x-tenant", "other"), Map.of(), null));
+        assertFalse(test(script, "POST", "/api/orders/7", Map.of("x-tenant", "acme"), Map.of("dryRun", "1"), null));
+        assertFalse(test(script, "POST", "/api/orders/7", null, null, null));
+    }
+
+    @Test
+    void testJsonAndNumericComparison() {
+        assertTrue(test("json.order.total > 100 && json.order.items[0].sku == 'A-1'", ORDER));
+        assertTrue(test("json['vip'] == 'true' && json.order.total == 150.50", ORDER));
+        assertFalse(test("json.order.total <= 100", ORDER));
+        assertFalse(test("json.order.missing > 1", ORDER));
+        assertTrue(test("json.order.missing == null", ORDER));
+        assertFalse(test("json.order.total > 100", "not json"));
+    }
+
+    @Test
+    void testBodyOperatorsAndPrecedence() {
+        assertTrue(test("body contains '\"sku\"' && body =~ 'A-\\\\d'", ORDER));
+        assertTrue(test("false || true && body endsWith '}'", ORDER));
+        assertFalse(test("(false || true) && body startsWith '['", ORDER));
+        assertTrue(test("!(body =~ '^\\\\[')", ORDER));
+    }
+
+    @Test
+    void testRejectsInvalidScripts() {
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("method =="));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("method == 'GET"));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("verb == 'GET'"));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("body =~ '[unclosed'"));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("body =~ path"));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("method == 'GET' ;"));
+        assertThrows(IllegalArgumentException.class, () -> MatchScript.compile("x".repeat(MatchScript.MAX_LENGTH + 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MatchScript.compile("true" + " || true".repeat(MatchScript.MAX_NODES)));
+    }
+
+    @Test
+    void testBudgetStopsCatastrophicBacktracking() {
+        MatchScript script = MatchScript.compile("body =~ '^(a+)+$'", 100_000);
+
+        assertTrue(script.test(null, null, null, null, new RequestBody("aaaa")));
+        assertFalse(script.test(null, null, null, null, new RequestBody("a".repeat(40) + "!")));
+    }
+
+    private boolean test(String source, String body) {
+        return test(MatchScript.compile(source), null, null, null, null, body);
+    }
+
+    private boolean test(MatchScript script, String method, String path, Map<String, String> headers,
+                         Map<String, String> queryParams, String body) {
+        return script.test(method, path, headers, queryParams, new RequestBody(body));
+    }
+}
@@ -0,0 +1,111 @@
+package nl.blockmock.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.blockmock.domain.AmqpMockEndpoint;
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.MockEndpoint;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.ProtocolType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MockMetrics metrics() {
+        MockMetrics metrics = new MockMetrics();
+        metrics.registry = registry;
+        return metrics;
+    }
+
+    @Test
+    void testMatchedRequestsAreTaggedByEndpointBlockAndResponse() {
+        MockMetrics metrics = metrics();
+        MockEndpoint endpoint = endpoint(new HttpMockEndpoint(), 1L, "orders", ProtocolType.HTTP);
+        MockResponse response = response(10L, "ok");
+
+        metrics.matched(endpoint, "shop", response, 25);
+        metrics.matched(endpoint, "shop", response, 25);
+        metrics.matched(endpoint, "shop", null, null);
+
+        assertEquals(3, registry.get("blockmock.mock.requests")
+                .tags("protocol", "HTTP", "endpoint", "orders", "block", "shop", "outcome", "matched")
+                .counter().count());
+        assertEquals(2, registry.get("blockmock.mock.responses").tags("endpoint", "orders", "response", "ok")
+                .counter().count());
+        assertEquals(50, registry.get("blockmock.mock.response.delay").tag("response", "ok")
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testUnmatchedRequestsAreTaggedNone() {
+        MockMetrics metrics = metrics();
+
+        metrics.unmatched(ProtocolType.HTTP);
+        metrics.unmatched(ProtocolType.HTTP);
+        metrics.unmatched(ProtocolType.AMQP);
+
+        assertEquals(2, registry.get("blockmock.mock.requests")
+                .tags("protocol", "HTTP", "endpoint", "none", "block", "none", "outcome", "unmatched")
+                .counter().count());
+        assertEquals(1, registry.get("blockmock.mock.requests").tags("protocol", "AMQP").counter().count());
+    }
+
+    @Test
+    void testRenamedEndpointGetsNewSeries() {
+        MockMetrics metrics = metrics();
+        MockEndpoint endpoint = endpoint(new HttpMockEndpoint(), 1L, "orders", ProtocolType.HTTP);
+
+        metrics.matched(endpoint, null, null, null);
+        endpoint.setName("orders-v2");
+        metrics.matched(endpoint, "shop", null, null);
+
+        assertEquals(1, registry.get("blockmock.mock.requests").tags("endpoint", "orders", "block", "none")
+                .counter().count());
+        assertEquals(1, registry.get("blockmock.mock.requests").tags("endpoint", "orders-v2", "block", "shop")
+                .counter().count());
+    }
+
+    @Test
+    void testConsumerLagIsOnlyRecordedWithCreationTime() {
+        MockMetrics metrics = metrics();
+        MockEndpoint endpoint = endpoint(new AmqpMockEndpoint(), 2L, "events", ProtocolType.AMQP);
+
+        metrics.consumerLag(endpoint, null, 0, System.nanoTime());
+        metrics.consumerLag(endpoint, null, System.currentTimeMillis() - 100, System.nanoTime());
+
+        assertEquals(1, registry.get("blockmock.amqp.consumer.lag").tag("endpoint", "events").timer().count());
+        assertTrue(registry.get("blockmock.amqp.consumer.lag").timer().totalTime(TimeUnit.MILLISECONDS) >= 100);
+        assertEquals(2, registry.get("blockmock.amqp.consumer.dispatch").tag("endpoint", "events").timer().count());
+    }
+
+    @Test
+    void testEndpointTagsAreCapped() {
+        registry.config().meterFilter(MockMetrics.endpointLimit(2));
+        MockMetrics metrics = metrics();
+
+        for (long id = 1; id <= 5; id++) {
+            metrics.matched(endpoint(new HttpMockEndpoint(), id, "endpoint-" + id, ProtocolType.HTTP), null, null, null);
+        }
+
+        assertEquals(2, registry.find("blockmock.mock.requests").counters().size());
+    }
+
+    private static MockEndpoint endpoint(MockEndpoint endpoint, Long id, String name, ProtocolType protocol) {
+        endpoint.id = id;
+        endpoint.setName(name);
+        endpoint.setProtocol(protocol);
+        return endpoint;
+    }
+
+    private static MockResponse response(Long id, String name) {
+        MockResponse response = new MockResponse();
+        response.id = id;
+        response.setName(name);
+        return response;
+    }
+}
@@ -0,0 +1,94 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.MockResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockPatternsTest {
+
+    @Test
+    void testLiteralPrefix() {
+        assertEquals("/api/users/", MockPatterns.literalPrefix("/api/users/\\d+"));
+        assertEquals("/api/users/", MockPatterns.literalPrefix("^/api/users/[0-9]+"));
+        assertEquals("/api/orders/", MockPatterns.literalPrefix("/api/orders/.*"));
+        assertEquals("/api/user", MockPatterns.literalPrefix("/api/users?"));
+        assertEquals("/api/v", MockPatterns.literalPrefix("/api/v1{1,2}/x"));
+        assertEquals("", MockPatterns.literalPrefix("/api/a|/api/b"));
+        assertEquals("", MockPatterns.literalPrefix("(?i)/api/users"));
+        assertEquals("", MockPatterns.literalPrefix(".*"));
+        assertEquals("/exact", MockPatterns.literalPrefix("/exact"));
+    }
+
+    @Test
+    void testBodyRegexForm() {
+        assertTrue(MockPatterns.isBodyRegex("/\"id\":\\s*\\d+/"));
+        assertFalse(MockPatterns.isBodyRegex("//"));
+        assertFalse(MockPatterns.isBodyRegex("/api/users"));
+        assertFalse(MockPatterns.isBodyRegex(null));
+        assertEquals("abc", MockPatterns.bodyRegex("/abc/"));
+    }
+
+    @Test
+    void testValidateRejectsInvalidPathRegex() {
+        HttpMockEndpoint endpoint = new HttpMockEndpoint();
+        endpoint.setHttpPath("/api/users/(\\d+");
+        endpoint.setHttpPathRegex(true);
+
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.validate(endpoint));
+
+        endpoint.setHttpPathRegex(false);
+        assertDoesNotThrow(() -> MockPatterns.validate(endpoint));
+    }
+
+    @Test
+    void testValidateRejectsInvalidBodyRegex() {
+        MockResponse response = new MockResponse();
+        response.setName("broken");
+        response.setMatchBody("/[unclosed/");
+
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.validate(response));
+
+        response.setMatchBody("[unclosed");
+        assertDoesNotThrow(() -> MockPatterns.validate(response));
+    }
+
+    @Test
+    void testJsonPointerFromJsonPath() {
+        assertEquals("/order/items/0/sku", MockPatterns.jsonPointer("$.order.items[0].sku").toString());
+        assertEquals("/a.b/c~1d", MockPatterns.jsonPointer("$['a.b'][\"c/d\"]").toString());
+        assertEquals("/order/id", MockPatterns.jsonPointer("/order/id").toString());
+        assertEquals("", MockPatterns.jsonPointer("$").toString());
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.jsonPointer("$..id"));
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.jsonPointer("$.items[*]"));
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.jsonPointer("$.items[?(@.qty)]"));
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.jsonPointer("order.id"));
+    }
+
+    @Test
+    void testValidateRejectsInvalidJsonPath() {
+        MockResponse response = new MockResponse();
+        response.setName("json");
+        response.setMatchJson(Map.of("$.items[*].sku", "x"));
+
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.validate(response));
+
+        response.setMatchJson(Map.of("$.items[0].sku", "x"));
+        assertDoesNotThrow(() -> MockPatterns.validate(response));
+    }
+
+    @Test
+    void testValidateRejectsInvalidMatchScript() {
+        MockResponse response = new MockResponse();
+        response.setName("scripted");
+        response.setMatchScript("method == ");
+
+        assertThrows(IllegalArgumentException.class, () -> MockPatterns.validate(response));
+
+        response.setMatchScript("method == 'GET'");
+        assertDoesNotThrow(() -> MockPatterns.validate(response));
+    }
+}
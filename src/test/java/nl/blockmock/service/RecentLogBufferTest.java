@@ -0,0 +1,116 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.ProtocolType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentLogBufferTest {
+
+    @Test
+    void testCapacityRoundedUpToPowerOfTwo() {
+        assertEquals(8, new RecentLogBuffer(5).capacity());
+        assertEquals(1, new RecentLogBuffer(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RecentLogBuffer(0));
+    }
+
+    @Test
+    void testNewestFirstWithLimit() {
+        RecentLogBuffer buffer = new RecentLogBuffer(8);
+        for (long id = 1; id <= 5; id++) {
+            buffer.add(log(id, 1L, true));
+        }
+
+        RecentLogBuffer.Window window = buffer.newest(3, log -> true);
+
+        assertEquals(List.of(5L, 4L, 3L), ids(window));
+        assertFalse(window.exhausted());
+    }
+
+    @Test
+    void testOverwritesOldestWhenFull() {
+        RecentLogBuffer buffer = new RecentLogBuffer(4);
+        for (long id = 1; id <= 10; id++) {
+            buffer.add(log(id, 1L, true));
+        }
+
+        RecentLogBuffer.Window window = buffer.newest(100, log -> true);
+
+        assertEquals(List.of(10L, 9L, 8L, 7L), ids(window));
+        assertTrue(window.exhausted());
+        assertEquals(7L, window.oldestExamined().id());
+    }
+
+    @Test
+    void testFilterReportsOldestExamined() {
+        RecentLogBuffer buffer = new RecentLogBuffer(8);
+        buffer.add(log(1, 1L, true));
+        buffer.add(log(2, 2L, false));
+        buffer.add(log(3, 1L, false));
+
+        RecentLogBuffer.Window window = buffer.newest(5,
+                new RequestLogFilter(1L, null, null)::test);
+
+        assertEquals(List.of(3L, 1L), ids(window));
+        assertTrue(window.exhausted());
+        assertEquals(1L, window.oldestExamined().id());
+    }
+
+    @Test
+    void testClearHidesEarlierLogs() {
+        RecentLogBuffer buffer = new RecentLogBuffer(8);
+        buffer.add(log(1, 1L, true));
+        buffer.clear();
+        buffer.add(log(2, 1L, true));
+
+        assertEquals(List.of(2L), ids(buffer.newest(10, log -> true)));
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        RecentLogBuffer buffer = new RecentLogBuffer(64);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 3; t++) {
+            long base = t * 100_000L;
+            pool.submit(() -> {
+                start.await();
+                for (long i = 1; i <= 20_000; i++) {
+                    buffer.add(log(base + i, 1L, true));
+                }
+                return null;
+            });
+        }
+        pool.submit(() -> {
+            start.await();
+            for (int i = 0; i < 2_000; i++) {
+                List<RecentLog> logs = buffer.newest(64, log -> true).logs();
+                assertTrue(logs.size() <= 64);
+                logs.forEach(log -> assertNotNull(log));
+            }
+            return null;
+        });
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(64, buffer.newest(100, log -> true).logs().size());
+    }
+
+    private static List<Long> ids(RecentLogBuffer.Window window) {
+        return window.logs().stream().map(RecentLog::id).toList();
+    }
+
+    private static RecentLog log(long id, Long endpointId, boolean matched) {
+        return new RecentLog(id, endpointId, null, ProtocolType.HTTP, "GET", "/orders", null, null, null,
+                200, null, null, 0, null, null, null, null, null, null, matched, "127.0.0.1",
+                LocalDateTime.now());
+    }
+}
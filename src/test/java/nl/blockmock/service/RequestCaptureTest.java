@@ -0,0 +1,95 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.CaptureLevel;
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCaptureTest {
+
+    @Test
+    void testFullKeepsEverything() {
+        RequestLog log = log();
+
+        assertTrue(RequestCapture.apply(log, CaptureLevel.FULL, null, 0));
+        assertEquals("{\"id\":1}", log.getRequestBody());
+        assertEquals("ok", log.getResponseBody());
+    }
+
+    @Test
+    void testHeadersOnlyDropsBodies() {
+        RequestLog log = log();
+
+        assertTrue(RequestCapture.apply(log, CaptureLevel.HEADERS_ONLY, null, 0));
+        assertNull(log.getRequestBody());
+        assertNull(log.getResponseBody());
+        assertNull(log.getResponseSnapshotHash());
+        assertEquals(Map.of("accept", "*/*"), log.getRequestHeaders());
+        assertEquals(Map.of("content-type", "text/plain"), log.getResponseHeaders());
+    }
+
+    @Test
+    void testMetadataOnlyKeepsRequestLine() {
+        RequestLog log = log();
+
+        assertTrue(RequestCapture.apply(log, CaptureLevel.METADATA_ONLY, null, 0));
+        assertNull(log.getRequestHeaders());
+        assertNull(log.getRequestQueryParams());
+        assertNull(log.getRequestBody());
+        assertNull(log.getResponseHeaders());
+        assertNull(log.getResponseBody());
+        assertEquals("GET", log.getRequestMethod());
+        assertEquals("/health", log.getRequestPath());
+        assertEquals(200, log.getResponseStatusCode());
+    }
+
+    @Test
+    void testCountOnlyWritesNothing() {
+        assertFalse(RequestCapture.apply(log(), CaptureLevel.COUNT_ONLY, null, 0));
+    }
+
+    @Test
+    void testSampledByPercent() {
+        assertTrue(RequestCapture.apply(log(), CaptureLevel.SAMPLED, 10, 9));
+        assertFalse(RequestCapture.apply(log(), CaptureLevel.SAMPLED, 10, 10));
+        assertTrue(RequestCapture.apply(log(), CaptureLevel.SAMPLED, 100, 99));
+    }
+
+    @Test
+    void testUnmatchedLogsAreAlwaysCaptured() {
+        assertTrue(RequestCapture.apply(log()));
+    }
+
+    @Test
+    void testSampledRequiresPercent() {
+        HttpMockEndpoint endpoint = new HttpMockEndpoint();
+        endpoint.setCaptureLevel(CaptureLevel.SAMPLED);
+        assertThrows(IllegalArgumentException.class, () -> RequestCapture.validate(endpoint));
+
+        endpoint.setCaptureSamplePercent(101);
+        assertThrows(IllegalArgumentException.class, () -> RequestCapture.validate(endpoint));
+
+        endpoint.setCaptureSamplePercent(25);
+        assertDoesNotThrow(() -> RequestCapture.validate(endpoint));
+
+        endpoint.setCaptureLevel(null);
+        RequestCapture.validate(endpoint);
+        assertEquals(CaptureLevel.FULL, endpoint.getCaptureLevel());
+    }
+
+    private static RequestLog log() {
+        RequestLog log = new RequestLog();
+        log.setRequestMethod("GET");
+        log.setRequestPath("/health");
+        log.setRequestHeaders(Map.of("accept", "*/*"));
+        log.setRequestQueryParams(Map.of("verbose", "true"));
+        log.setRequestBody("{\"id\":1}");
+        log.setResponseStatusCode(200);
+        log.setResponseSnapshot("ab12", Map.of("content-type", "text/plain"), "ok");
+        return log;
+    }
+}
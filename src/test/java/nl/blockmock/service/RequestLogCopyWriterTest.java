@@ -0,0 +1,126 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogCopyWriterTest {
+
+    @Test
+    void testIdsOfAFreshSequenceMatchThePooledOptimizer() {
+        List<RequestLog> logs = logs(120);
+        RequestLogCopyWriter.IdAllocator allocator = new RequestLogCopyWriter.IdAllocator();
+
+        int index = allocator.assign(1, logs, 0);
+        assertEquals(0, index);
+        index = allocator.assign(51, logs, index);
+        index = allocator.assign(101, logs, index);
+        index = allocator.assign(151, logs, index);
+
+        assertEquals(120, index);
+        assertEquals(1L, logs.get(0).id);
+        assertEquals(51L, logs.get(50).id);
+        assertEquals(52L, logs.get(51).id);
+        assertEquals(101L, logs.get(100).id);
+        assertEquals(102L, logs.get(101).id);
+        assertEquals(120L, logs.get(119).id);
+    }
+
+    @Test
+    void testLaterValuesAreTheHighestIdOfTheirBlock() {
+        List<RequestLog> logs = logs(3);
+
+        int index = new RequestLogCopyWriter.IdAllocator().assign(251, logs, 0);
+
+        assertEquals(3, index);
+        assertEquals(202L, logs.get(0).id);
+        assertEquals(204L, logs.get(2).id);
+    }
+
+    private static List<RequestLog> logs(int count) {
+        List<RequestLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(new RequestLog());
+        }
+        return logs;
+    }
+
+    @Test
+    void testRowInCopyTextFormat() {
+        HttpMockEndpoint endpoint = new HttpMockEndpoint();
+        endpoint.id = 7L;
+        RequestLog log = new RequestLog();
+        log.id = 101L;
+        log.setMockEndpoint(endpoint);
+        log.setProtocol(ProtocolType.HTTP);
+        log.setRequestMethod("POST");
+        log.setRequestPath("/api/orders");
+        log.setRequestHeaders(Map.of("content-type", "application/json"));
+        log.setRequestBody("{\"note\":\"line1\\nline2\"}\n\tC:\\temp");
+        log.setResponseStatusCode(201);
+        log.setMatched(true);
+        log.setReceivedAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000));
+
+        StringBuilder row = new StringBuilder();
+        RequestLogCopyWriter.appendRow(row, log);
+
+        String[] fields = row.toString().split("\t", -1);
+        assertEquals(27, fields.length);
+        assertEquals("101", fields[0]);
+        assertEquals("7", fields[1]);
+        assertEquals("\\N", fields[2]);
+        assertEquals("HTTP", fields[3]);
+        assertEquals("{\"content-type\":\"application/json\"}", fields[6]);
+        assertEquals("\\N", fields[7]);
+        assertEquals("{\"note\":\"line1\\\\nline2\"}\\n\\tC:\\\\temp", fields[8]);
+        assertEquals("201", fields[9]);
+        assertEquals("t", fields[19]);
+        assertEquals("2024-05-01T12:30:15.123", fields[21]);
+        assertEquals("\\N", fields[22]);
+        assertEquals("\\N\n", fields[26]);
+    }
+
+    @Test
+    void testSnapshotReferencedInsteadOfInlinePayload() {
+        RequestLog log = new RequestLog();
+        log.id = 5L;
+        log.setProtocol(ProtocolType.HTTP);
+        log.setMatched(true);
+        log.setResponseSnapshot("ab12", Map.of("content-type", "text/plain"), "large body");
+
+        StringBuilder row = new StringBuilder();
+        RequestLogCopyWriter.appendRow(row, log);
+
+        String[] fields = row.toString().split("\t", -1);
+        assertEquals("\\N", fields[10]);
+        assertEquals("\\N", fields[11]);
+        assertEquals("ab12", fields[22]);
+        assertEquals("large body", log.getResponseBody());
+    }
+
+    @Test
+    void testCompressedBodyAsByteaHex() {
+        RequestLog log = new RequestLog();
+        log.id = 6L;
+        log.setProtocol(ProtocolType.HTTP);
+        log.setMatched(false);
+        log.setRequestBodyCompressed(new byte[]{0x0a, (byte) 0xff});
+        log.setRequestBodyLength(1234);
+
+        StringBuilder row = new StringBuilder();
+        RequestLogCopyWriter.appendRow(row, log);
+
+        String[] fields = row.toString().split("\t", -1);
+        assertEquals("\\N", fields[8]);
+        assertEquals("\\\\x0aff", fields[23]);
+        assertEquals("1234", fields[24]);
+    }
+}
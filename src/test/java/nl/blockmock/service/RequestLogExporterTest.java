@@ -0,0 +1,33 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogExporterTest {
+
+    @Test
+    void testCsvQuotingFollowsRfc4180() throws Exception {
+        StringWriter out = new StringWriter();
+
+        RequestLogExporter.writeCsvRow(out, new String[]{"1", null, "a,b", "say \"hi\"", "line1\nline2", "plain"});
+
+        assertEquals("1,,\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",plain\r\n", out.toString());
+    }
+
+    @Test
+    void testFilterAsSql() {
+        List<Object> params = new ArrayList<>();
+        RequestLogFilter filter = new RequestLogFilter(3L, null, false, null, null, "/api_", 500);
+
+        String sql = filter.sql(params);
+
+        assertEquals("true AND l.mock_endpoint_id = ? AND l.matched = ? "
+                + "AND l.request_path LIKE ? ESCAPE '\\' AND l.response_status_code = ?", sql);
+        assertEquals(List.of(3L, false, "/api\\_%", 500), params);
+    }
+}
@@ -0,0 +1,75 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.ProtocolType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogFilterTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Test
+    void testEmptyFilterMatchesEverything() {
+        Map<String, Object> params = new HashMap<>();
+
+        assertEquals("1 = 1", RequestLogFilter.NONE.query(params));
+        assertTrue(params.isEmpty());
+        assertTrue(RequestLogFilter.NONE.test(log("/orders/1", 200, NOON)));
+    }
+
+    @Test
+    void testCombinedCriteriaQuery() {
+        RequestLogFilter filter = new RequestLogFilter(7L, ProtocolType.HTTP, true,
+                NOON, NOON.plusHours(1), "/orders", 200);
+        Map<String, Object> params = new HashMap<>();
+
+        String query = filter.query(params);
+
+        assertTrue(query.contains("mockEndpoint.id = :endpointId"));
+        assertTrue(query.contains("receivedAt >= :from"));
+        assertTrue(query.contains("receivedAt < :to"));
+        assertTrue(query.contains("requestPath like :pathPrefix"));
+        assertEquals("/orders%", params.get("pathPrefix"));
+        assertEquals(200, params.get("statusCode"));
+        assertEquals(7, params.size());
+    }
+
+    @Test
+    void testLikeWildcardsInPrefixAreEscaped() {
+        assertEquals("/a\\_b\\%c\\\\%", RequestLogFilter.likePrefix("/a_b%c\\"));
+    }
+
+    @Test
+    void testInMemoryTestMatchesQuerySemantics() {
+        RequestLogFilter filter = new RequestLogFilter(null, null, null, NOON, NOON.plusHours(1), "/orders", 200);
+
+        assertTrue(filter.test(log("/orders/1", 200, NOON)));
+        assertFalse(filter.test(log("/orders/1", 200, NOON.plusHours(1))));
+        assertFalse(filter.test(log("/orders/1", 200, NOON.minusSeconds(1))));
+        assertFalse(filter.test(log("/customers/1", 200, NOON)));
+        assertFalse(filter.test(log("/orders/1", 404, NOON)));
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        RequestLogPage.Cursor cursor = new RequestLogPage.Cursor(NOON.plusNanos(123_000), 42L);
+
+        assertEquals(cursor, RequestLogPage.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testInvalidCursorRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RequestLogPage.Cursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> RequestLogPage.Cursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+
+    private static RecentLog log(String path, int status, LocalDateTime receivedAt) {
+        return new RecentLog(1L, 7L, null, ProtocolType.HTTP, "GET", path, null, null, null,
+                status, null, null, 0, null, null, null, null, null, null, true, null, receivedAt);
+    }
+}
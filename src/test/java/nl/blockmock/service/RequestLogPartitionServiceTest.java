@@ -0,0 +1,44 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogPartitionServiceTest {
+
+    @Test
+    void testPartitionNameRoundTrip() {
+        LocalDate day = LocalDate.of(2024, 3, 9);
+        assertEquals("request_log_p20240309", RequestLogPartitionService.partitionName(day));
+        assertEquals(Optional.of(day), RequestLogPartitionService.partitionDay("request_log_p20240309"));
+    }
+
+    @Test
+    void testForeignPartitionNamesIgnored() {
+        assertTrue(RequestLogPartitionService.partitionDay("request_log_default").isEmpty());
+        assertTrue(RequestLogPartitionService.partitionDay("request_log_p2024").isEmpty());
+        assertTrue(RequestLogPartitionService.partitionDay("request_log_p20241340").isEmpty());
+    }
+
+    @Test
+    void testMissingDaysCoverTodayThroughPremake() {
+        LocalDate today = LocalDate.of(2024, 12, 30);
+        List<LocalDate> missing = RequestLogPartitionService.missingDays(
+                List.of(today, today.plusDays(2)), today, 3);
+
+        assertEquals(List.of(LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 2)), missing);
+    }
+
+    @Test
+    void testExpiredDaysAreStrictlyBeforeCutoff() {
+        LocalDate cutoff = LocalDate.of(2024, 5, 10);
+        List<LocalDate> existing = List.of(cutoff.plusDays(1), cutoff, cutoff.minusDays(1), cutoff.minusDays(5));
+
+        assertEquals(List.of(cutoff.minusDays(5), cutoff.minusDays(1)),
+                RequestLogPartitionService.expiredDays(existing, cutoff));
+    }
+}
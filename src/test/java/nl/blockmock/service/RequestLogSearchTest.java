@@ -0,0 +1,54 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogSearchTest {
+
+    @Test
+    void testParseFields() {
+        assertEquals(EnumSet.allOf(RequestLogSearch.Field.class), RequestLogSearch.Field.parse(null));
+        assertEquals(EnumSet.of(RequestLogSearch.Field.BODY, RequestLogSearch.Field.HEADERS),
+                RequestLogSearch.Field.parse("body, Headers"));
+        assertThrows(IllegalArgumentException.class, () -> RequestLogSearch.Field.parse("body,cookies"));
+    }
+
+    @Test
+    void testConditionSearchesEachFieldWithEscapedPattern() {
+        List<Object> params = new ArrayList<>();
+
+        String condition = RequestLogSearch.condition(" order_12345 ",
+                EnumSet.of(RequestLogSearch.Field.BODY, RequestLogSearch.Field.PROPERTIES), params);
+
+        assertEquals("(l.request_body ILIKE ? ESCAPE '\\' OR l.amqp_properties::text ILIKE ? ESCAPE '\\')", condition);
+        assertEquals(List.of("%order\\_12345%", "%order\\_12345%"), params);
+    }
+
+    @Test
+    void testSkippedCountCoversCompressedBodiesInTheFilter() {
+        List<Object> params = new ArrayList<>();
+
+        String sql = RequestLogSearch.skippedSql(new RequestLogFilter(7L, null, null), params);
+
+        assertEquals("SELECT count(*) FROM (SELECT 1 FROM request_log l WHERE true AND l.mock_endpoint_id = ? "
+                + "AND l.request_body_compressed IS NOT NULL LIMIT 10000) skipped", sql);
+        assertEquals(List.of(7L), params);
+    }
+
+    @Test
+    void testRejectsTermsTooShortForTheIndex() {
+        List<Object> params = new ArrayList<>();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RequestLogSearch.condition(" ab ", EnumSet.allOf(RequestLogSearch.Field.class), params));
+        assertThrows(IllegalArgumentException.class,
+                () -> RequestLogSearch.condition(null, EnumSet.allOf(RequestLogSearch.Field.class), params));
+        assertThrows(IllegalArgumentException.class,
+                () -> RequestLogSearch.condition("abc", EnumSet.noneOf(RequestLogSearch.Field.class), params));
+    }
+}
@@ -0,0 +1,67 @@
+package nl.blockmock.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class RequestLogServiceTest {
+
+    @Inject
+    RequestLogService requestLogService;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        RequestLog.deleteAll();
+    }
+
+    @Test
+    void testListedLogsCarryTheirResponseSnapshot() {
+        persistSnapshotLog();
+
+        List<RequestLog> logs = requestLogService.findAll(10);
+
+        assertEquals(1, logs.size());
+        assertEquals("{\"status\":\"ok\"}", logs.get(0).getResponseBody());
+        assertEquals(Map.of("Content-Type", "application/json"), logs.get(0).getResponseHeaders());
+        assertEquals("{\"status\":\"ok\"}", requestLogService.findMatched(true, 10).get(0).getResponseBody());
+        assertEquals("{\"status\":\"ok\"}",
+                requestLogService.findByProtocol(ProtocolType.HTTP, 10).get(0).getResponseBody());
+    }
+
+    private static void persistSnapshotLog() {
+        MockResponse response = new MockResponse();
+        response.setResponseHeaders(Map.of("Content-Type", "application/json"));
+        response.setResponseBody("{\"status\":\"ok\"}");
+        ResponseSnapshot snapshot = ResponseSnapshot.of(response);
+        RequestLog log = new RequestLog();
+        log.setProtocol(ProtocolType.HTTP);
+        log.setRequestMethod("GET");
+        log.setRequestPath("/orders");
+        log.setResponseStatusCode(200);
+        log.setMatched(true);
+        log.setReceivedAt(LocalDateTime.now());
+        log.setResponseSnapshot(snapshot.hash(), snapshot.headers(), snapshot.body());
+        QuarkusTransaction.requiringNew().run(() -> {
+            RequestLog.getEntityManager().createNativeQuery(ResponseSnapshot.UPSERT_SQL)
+                    .setParameter("hash", snapshot.hash())
+                    .setParameter("headers", snapshot.headersJson())
+                    .setParameter("body", snapshot.body())
+                    .executeUpdate();
+            log.persist();
+        });
+    }
+}
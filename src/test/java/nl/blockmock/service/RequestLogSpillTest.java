@@ -0,0 +1,154 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.HttpMockEndpoint;
+import nl.blockmock.domain.ProtocolType;
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogSpillTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordRoundTrip() {
+        RequestLog log = log("/orders/1", "{\"orderId\":12345}");
+        HttpMockEndpoint endpoint = new HttpMockEndpoint();
+        endpoint.id = 7L;
+        log.setMockEndpoint(endpoint);
+        log.setRequestHeaders(Map.of("Content-Type", "application/json"));
+        log.setResponseSnapshot("abc123", Map.of("X-Mock", "yes"), "ok");
+
+        RequestLog decoded = RequestLogSpill.decode(ByteBuffer.wrap(RequestLogSpill.encode(log)));
+
+        assertNull(decoded.id);
+        assertEquals(7L, decoded.getMockEndpoint().id);
+        assertInstanceOf(HttpMockEndpoint.class, decoded.getMockEndpoint());
+        assertNull(decoded.getMockResponse());
+        assertEquals(ProtocolType.HTTP, decoded.getProtocol());
+        assertEquals("/orders/1", decoded.getRequestPath());
+        assertEquals(Map.of("Content-Type", "application/json"), decoded.getRequestHeaders());
+        assertNull(decoded.getRequestQueryParams());
+        assertEquals("{\"orderId\":12345}", decoded.getRequestBody());
+        assertEquals("abc123", decoded.getResponseSnapshotHash());
+        assertEquals("ok", decoded.getResponseBody());
+        assertEquals(200, decoded.getResponseStatusCode());
+        assertTrue(decoded.getMatched());
+        assertEquals(log.getReceivedAt(), decoded.getReceivedAt());
+    }
+
+    @Test
+    void testCompressedBodiesAreInflatedOnDecode() {
+        String body = "x".repeat(20_000);
+        RequestLog log = log("/bulk", body);
+        BodyCompression.compress(log, 1024);
+        assertNull(log.getRequestBody());
+
+        RequestLog decoded = RequestLogSpill.decode(ByteBuffer.wrap(RequestLogSpill.encode(log)));
+
+        assertEquals(body, decoded.getRequestBody());
+        assertNull(decoded.getRequestBodyCompressed());
+    }
+
+    @Test
+    void testReplaysSegmentsInOrderAndDeletesThem() throws Exception {
+        RequestLogSpill spill = new RequestLogSpill(directory, 4096, 100);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(spill.append(log("/orders/" + i, null)));
+        }
+        spill.seal();
+        assertTrue(spill.segments() > 1);
+
+        List<String> paths = new ArrayList<>();
+        for (Path segment : spill.sealedSegments()) {
+            spill.replay(segment, 7, batch -> batch.forEach(log -> paths.add(log.getRequestPath())));
+        }
+
+        assertEquals(50, paths.size());
+        assertEquals("/orders/0", paths.get(0));
+        assertEquals("/orders/49", paths.get(49));
+        assertEquals(0, spill.segments());
+        assertTrue(spill.sealedSegments().isEmpty());
+        assertEquals(50, spill.replayed());
+    }
+
+    @Test
+    void testFailedReplayResumesWithTheFailedBatch() throws Exception {
+        RequestLogSpill spill = new RequestLogSpill(directory, 1 << 20, 4);
+        for (int i = 0; i < 10; i++) {
+            spill.append(log("/orders/" + i, null));
+        }
+        spill.seal();
+        Path segment = spill.sealedSegments().get(0);
+        List<String> written = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> spill.replay(segment, 4, batch -> {
+            if (!written.isEmpty()) {
+                throw new IllegalStateException("database down");
+            }
+            batch.forEach(log -> written.add(log.getRequestPath()));
+        }));
+        // A new instance, as after a restart, picks up the remaining records
+        RequestLogSpill restarted = new RequestLogSpill(directory, 1 << 20, 4);
+        restarted.replay(restarted.sealedSegments().get(0), 4, batch -> batch.forEach(log -> written.add(log.getRequestPath())));
+
+        assertEquals(10, written.size());
+        assertEquals("/orders/4", written.get(4));
+    }
+
+    @Test
+    void testFailingReplaysDuringAnOutageDoNotMultiplySegments() throws Exception {
+        RequestLogSpill spill = new RequestLogSpill(directory, 1 << 20, 4);
+        // One replay tick per spilled log, all failing, far more ticks than the segment limit
+        for (int i = 0; i < 100; i++) {
+            assertTrue(spill.append(log("/orders/" + i, null)));
+            assertThrows(IllegalStateException.class, () -> spill.replayAll(10, batch -> {
+                throw new IllegalStateException("database down");
+            }));
+            assertTrue(spill.segments() <= 2, "segments after tick " + i + ": " + spill.segments());
+        }
+
+        List<String> written = new ArrayList<>();
+        long replayed = spill.replayAll(10, batch -> batch.forEach(log -> written.add(log.getRequestPath())));
+
+        assertEquals(100, replayed);
+        assertEquals("/orders/0", written.get(0));
+        assertEquals("/orders/99", written.get(99));
+        assertEquals(0, spill.segments());
+    }
+
+    @Test
+    void testRefusesAppendsBeyondSegmentLimit() throws Exception {
+        RequestLogSpill spill = new RequestLogSpill(directory, 512, 2);
+        int appended = 0;
+        while (spill.append(log("/orders/" + appended, null))) {
+            appended++;
+        }
+
+        assertEquals(2, spill.segments());
+        assertTrue(appended > 2);
+        assertFalse(spill.append(log("/too-large", "y".repeat(1024))));
+    }
+
+    private static RequestLog log(String path, String body) {
+        RequestLog log = new RequestLog();
+        log.setProtocol(ProtocolType.HTTP);
+        log.setRequestMethod("POST");
+        log.setRequestPath(path);
+        log.setRequestBody(body);
+        log.setResponseStatusCode(200);
+        log.setMatched(true);
+        log.setReceivedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        return log;
+    }
+}
@@ -0,0 +1,84 @@
+package nl.blockmock.service;
+
+import io.smallrye.mutiny.subscription.Cancellable;
+import nl.blockmock.domain.ProtocolType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogStreamTest {
+
+    @Test
+    void testDeliversMatchingLogsOnly() throws InterruptedException {
+        RequestLogStream stream = new RequestLogStream();
+        List<Long> received = new CopyOnWriteArrayList<>();
+        Cancellable subscription = stream.subscribe(new RequestLogFilter(1L, null, true))
+                .subscribe().with(log -> received.add(log.id()));
+
+        stream.publish(List.of(log(1, 1L, true), log(2, 2L, true), log(3, 1L, false), log(4, 1L, true)));
+
+        awaitSize(received, 2);
+        assertEquals(List.of(1L, 4L), received);
+        subscription.cancel();
+    }
+
+    @Test
+    void testCancelRemovesSubscriber() {
+        RequestLogStream stream = new RequestLogStream();
+        Cancellable subscription = stream.subscribe(RequestLogFilter.NONE).subscribe().with(log -> {});
+        assertEquals(1, stream.subscribers());
+
+        subscription.cancel();
+
+        assertEquals(0, stream.subscribers());
+    }
+
+    @Test
+    void testSlowSubscriberDropsInsteadOfBlocking() {
+        RequestLogStream stream = new RequestLogStream();
+        stream.subscribe(RequestLogFilter.NONE).subscribe().withSubscriber(new Flow.Subscriber<RecentLog>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(RecentLog item) {
+                // never requests more
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        stream.publish(LongStream.rangeClosed(1, 10_000).mapToObj(id -> log(id, 1L, true)).toList());
+
+        assertTrue(stream.dropped() > 0);
+        assertTrue(stream.dropped() < 10_000);
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static RecentLog log(long id, Long endpointId, boolean matched) {
+        return new RecentLog(id, endpointId, null, ProtocolType.HTTP, "GET", "/orders", null, null, null,
+                200, null, null, 0, null, null, null, null, null, null, matched, "127.0.0.1",
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,153 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.MockResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponsePlanTest {
+
+    @Test
+    void testHighestPriorityWinsAndTiesKeepOrder() {
+        MockResponse low = response("low", 0);
+        MockResponse first = response("first", 5);
+        MockResponse second = response("second", 5);
+        ResponsePlan plan = ResponsePlan.http(List.of(low, first, second), Pattern::compile, MatchScript::compile);
+
+        assertSame(first, plan.select(Map.of(), Map.of(), body(null)));
+        assertEquals(3, plan.size());
+    }
+
+    @Test
+    void testHttpHeaderNamesAreMatchedCaseInsensitively() {
+        MockResponse json = response("json", 1);
+        json.setMatchHeaders(Map.of("Content-Type", "application/json"));
+        MockResponse fallback = response("fallback", 0);
+        ResponsePlan plan = ResponsePlan.http(List.of(json, fallback), Pattern::compile, MatchScript::compile);
+
+        assertSame(json, plan.select(Map.of("content-type", "application/json"), Map.of(), body(null)));
+        assertSame(fallback, plan.select(Map.of("content-type", "text/plain"), Map.of(), body(null)));
+        assertSame(fallback, plan.select(Map.of(), Map.of(), body(null)));
+    }
+
+    @Test
+    void testQueryParams() {
+        MockResponse paged = response("paged", 1);
+        paged.setMatchQueryParams(Map.of("page", "2"));
+        ResponsePlan plan = ResponsePlan.http(List.of(paged), Pattern::compile, MatchScript::compile);
+
+        assertSame(paged, plan.select(Map.of(), Map.of("page", "2"), body(null)));
+        assertNull(plan.select(Map.of(), Map.of("page", "3"), body(null)));
+        assertNull(plan.select(Map.of(), Map.of(), body(null)));
+    }
+
+    @Test
+    void testBodyContainsAndRegex() {
+        MockResponse contains = response("contains", 2);
+        contains.setMatchBody("\"type\":\"gold\"");
+        MockResponse regex = response("regex", 1);
+        regex.setMatchBody("/\"id\":\\s*\\d+/");
+        ResponsePlan plan = ResponsePlan.http(List.of(contains, regex), Pattern::compile, MatchScript::compile);
+
+        assertSame(contains, plan.select(Map.of(), Map.of(), body("{\"type\":\"gold\"}")));
+        assertSame(regex, plan.select(Map.of(), Map.of(), body("{\"id\": 42}")));
+        assertNull(plan.select(Map.of(), Map.of(), body("{\"id\": \"x\"}")));
+        assertNull(plan.select(Map.of(), Map.of(), body(null)));
+    }
+
+    @Test
+    void testUncompilableBodyRegexFallsBackToEquality() {
+        MockResponse broken = response("broken", 0);
+        broken.setMatchBody("/[unclosed/");
+        ResponsePlan plan = ResponsePlan.http(List.of(broken), regex -> null, MatchScript::compile);
+
+        assertSame(broken, plan.select(Map.of(), Map.of(), body("/[unclosed/")));
+        assertNull(plan.select(Map.of(), Map.of(), body("[unclosed")));
+    }
+
+    @Test
+    void testAmqpPropertiesAreCaseSensitiveAndBodyIsSubstring() {
+        MockResponse typed = response("typed", 1);
+        typed.setMatchHeaders(Map.of("EventType", "OrderCreated"));
+        typed.setMatchBody("/not-a-regex/");
+        ResponsePlan plan = ResponsePlan.amqp(List.of(typed), MatchScript::compile);
+
+        assertSame(typed, plan.select(Map.of("EventType", "OrderCreated"), Map.of(), body("x/not-a-regex/x")));
+        assertNull(plan.select(Map.of("eventtype", "OrderCreated"), Map.of(), body("x/not-a-regex/x")));
+        assertNull(plan.select(null, Map.of(), body("x/not-a-regex/x")));
+    }
+
+    @Test
+    void testJsonPathCriteria() {
+        MockResponse gold = response("gold", 2);
+        gold.setMatchJson(Map.of("$.customer.tier", "gold", "/items/0/qty", "3"));
+        MockResponse anyOrder = response("any-order", 1);
+        anyOrder.setMatchJson(Map.of("$['items'][0]", "{\"qty\":3}"));
+        ResponsePlan plan = ResponsePlan.http(List.of(gold, anyOrder), Pattern::compile, MatchScript::compile);
+
+        String body = "{\"customer\":{\"tier\":\"gold\"},\"items\":[{\"qty\":3}]}";
+        assertSame(gold, plan.select(Map.of(), Map.of(), body(body)));
+        assertSame(anyOrder, plan.select(Map.of(), Map.of(), body(body.replace("gold\"", "silver\""))));
+        assertNull(plan.select(Map.of(), Map.of(), body("{\"customer\":{\"tier\":\"gold\"}}")));
+        assertNull(plan.select(Map.of(), Map.of(), body("not json")));
+        assertNull(plan.select(Map.of(), Map.of(), body(null)));
+    }
+
+    @Test
+    void testJsonIsParsedOncePerRequest() {
+        MockResponse first = response("first", 2);
+        first.setMatchJson(Map.of("$.a", "1"));
+        MockResponse second = response("second", 1);
+        second.setMatchJson(Map.of("$.b", "2"));
+        ResponsePlan plan = ResponsePlan.amqp(List.of(first, second), MatchScript::compile);
+
+        RequestBody body = body("{\"a\":0,\"b\":2}");
+        assertSame(second, plan.select(Map.of(), Map.of(), body));
+        assertSame(body.json(), body.json());
+    }
+
+    @Test
+    void testInvalidJsonPathNeverMatches() {
+        MockResponse broken = response("broken", 1);
+        broken.setMatchJson(Map.of("$..a", "1"));
+        ResponsePlan plan = ResponsePlan.http(List.of(broken), Pattern::compile, MatchScript::compile);
+
+        assertNull(plan.select(Map.of(), Map.of(), body("{\"a\":1}")));
+    }
+
+    @Test
+    void testMatchScriptIsCheckedWithRequestLine() {
+        MockResponse scripted = response("scripted", 1);
+        scripted.setMatchHeaders(Map.of("X-Tenant", "acme"));
+        scripted.setMatchScript("method == 'DELETE' && path =~ '/orders/[0-9]+$'");
+        MockResponse broken = response("broken", 2);
+        broken.setMatchScript("method ==");
+        ResponsePlan plan = ResponsePlan.http(List.of(scripted, broken), Pattern::compile, script -> {
+            try {
+                return MatchScript.compile(script);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        });
+
+        Map<String, String> headers = Map.of("x-tenant", "acme");
+        assertSame(scripted, plan.select("DELETE", "/orders/7", headers, Map.of(), body(null)));
+        assertNull(plan.select("GET", "/orders/7", headers, Map.of(), body(null)));
+        assertNull(plan.select("DELETE", "/orders/7", Map.of(), Map.of(), body(null)));
+    }
+
+    private RequestBody body(String text) {
+        return new RequestBody(text);
+    }
+
+    private MockResponse response(String name, int priority) {
+        MockResponse response = new MockResponse();
+        response.setName(name);
+        response.setPriority(priority);
+        return response;
+    }
+}
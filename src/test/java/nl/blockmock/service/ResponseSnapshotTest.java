@@ -0,0 +1,63 @@
+package nl.blockmock.service;
+
+import nl.blockmock.domain.MockResponse;
+import nl.blockmock.domain.RequestLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseSnapshotTest {
+
+    @Test
+    void testHashIgnoresHeaderOrder() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("a", "1");
+        first.put("b", "2");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("b", "2");
+        second.put("a", "1");
+
+        assertEquals(ResponseSnapshot.of(response(first, "body")).hash(),
+                ResponseSnapshot.of(response(second, "body")).hash());
+    }
+
+    @Test
+    void testHashDistinguishesContent() {
+        String hash = ResponseSnapshot.of(response(Map.of("a", "1"), "body")).hash();
+
+        assertEquals(64, hash.length());
+        assertNotEquals(hash, ResponseSnapshot.of(response(Map.of("a", "1"), "body2")).hash());
+        assertNotEquals(hash, ResponseSnapshot.of(response(Map.of("a", "2"), "body")).hash());
+        assertNotEquals(ResponseSnapshot.of(response(null, "")).hash(),
+                ResponseSnapshot.of(response(null, null)).hash());
+    }
+
+    @Test
+    void testApplySetsSnapshotPayloadOfReferencingLogs() {
+        ResponseSnapshot snapshot = ResponseSnapshot.of(response(Map.of("X-Mock", "yes"), "canned"));
+        RequestLog referencing = new RequestLog();
+        referencing.setResponseSnapshotHash(snapshot.hash());
+        RequestLog inline = new RequestLog();
+        inline.setResponseBody("inline");
+        RequestLog missing = new RequestLog();
+        missing.setResponseSnapshotHash("0".repeat(64));
+
+        ResponseSnapshot.apply(List.of(referencing, inline, missing), Map.of(snapshot.hash(), snapshot));
+
+        assertEquals("canned", referencing.getResponseBody());
+        assertEquals(Map.of("X-Mock", "yes"), referencing.getResponseHeaders());
+        assertEquals("inline", inline.getResponseBody());
+        assertNull(missing.getResponseBody());
+    }
+
+    private static MockResponse response(Map<String, String> headers, String body) {
+        MockResponse response = new MockResponse();
+        response.setResponseHeaders(headers);
+        response.setResponseBody(body);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package nl.blockmock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XmlMatcherTest {
+
+    private static final String ENVELOPE = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/" xmlns:o="urn:orders">
+              <soap:Header><o:Tenant>acme</o:Tenant></soap:Header>
+              <soap:Body>
+                <o:GetOrder type="express">
+                  <o:Id> 42 </o:Id>
+                  <o:Lines><o:Line><o:Sku>A-1</o:Sku></o:Line><o:Line><o:Sku>B-2</o:Sku></o:Line></o:Lines>
+                  <o:Note><![CDATA[fragile & heavy]]></o:Note>
+                </o:GetOrder>
+              </soap:Body>
+            </soap:Envelope>
+            """;
+
+    @Test
+    void testAbsoluteAndDescendantPaths() {
+        assertTrue(matches(Map.of("/Envelope/Body/GetOrder/Id", "42"), ENVELOPE));
+        assertTrue(matches(Map.of("/soap:Envelope/soap:Body/o:GetOrder/o:Id/text()", "42"), ENVELOPE));
+        assertTrue(matches(Map.of("//Tenant", "acme", "//GetOrder//Sku", "A-1"), ENVELOPE));
+        assertTrue(matches(Map.of("/Envelope/*/GetOrder/Note", "fragile & heavy"), ENVELOPE));
+        assertFalse(matches(Map.of("/Body/GetOrder/Id", "42"), ENVELOPE));
+        assertFalse(matches(Map.of("//Sku", "B-2"), ENVELOPE));
+        assertFalse(matches(Map.of("//Missing", "x"), ENVELOPE));
+    }
+
+    @Test
+    void testAttributes() {
+        assertTrue(matches(Map.of("//GetOrder/@type", "express"), ENVELOPE));
+        assertFalse(matches(Map.of("//GetOrder/@type", "standard"), ENVELOPE));
+        assertFalse(matches(Map.of("//GetOrder/@priority", "high"), ENVELOPE));
+    }
+
+    @Test
+    void testStopsReadingOnceDecided() {
+        String truncated = "<Envelope><Body><Id>42</Id><Rest>" + "x".repeat(1000);
+
+        assertTrue(matches(Map.of("//Id", "42"), truncated));
+        assertFalse(matches(Map.of("//Id", "7"), truncated));
+        assertFalse(matches(Map.of("//Id", "42", "//Other", "y"), truncated));
+    }
+
+    @Test
+    void testInvalidDocumentsDoNotMatch() {
+        assertFalse(matches(Map.of("//Id", "42"), null));
+        assertFalse(matches(Map.of("//Id", "42"), "{\"Id\":42}"));
+        assertFalse(matches(Map.of("//Id", "42"),
+                "<!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><Id>&e;</Id>"));
+    }
+
+    @Test
+    void testRejectsUnsupportedPaths() {
+        assertThrows(IllegalArgumentException.class, () -> XmlMatcher.compile(Map.of("Envelope/Body", "x")));
+        assertThrows(IllegalArgumentException.class, () -> XmlMatcher.compile(Map.of("//Line[1]/Sku", "x")));
+        assertThrows(IllegalArgumentException.class, () -> XmlMatcher.compile(Map.of("//@type", "x")));
+        assertThrows(IllegalArgumentException.class, () -> XmlMatcher.compile(Map.of("//Order/@type/Id", "x")));
+        assertThrows(IllegalArgumentException.class, () -> XmlMatcher.compile(Map.of("/Envelope/", "x")));
+    }
+
+    private boolean matches(Map<String, String> criteria, String body) {
+        return XmlMatcher.compile(criteria).matches(body);
+    }
+}